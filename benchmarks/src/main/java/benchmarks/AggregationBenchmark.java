@@ -0,0 +1,68 @@
+package benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.time.LocalDate;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * ExpenseManager aggregate queries against the embedded database, through the
+ * real connection pool. The summary cache is disabled by BenchDatabase, and
+ * users rotate so no single row range stays hot. columnar=true answers the
+ * same calls from ColumnarExpenseRepository instead of SQL.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AggregationBenchmark {
+
+    private static final int YEAR = BenchDatabase.FIRST_YEAR + 1;
+    private static final LocalDate RANGE_FROM = LocalDate.of(YEAR, 3, 1);
+    private static final LocalDate RANGE_TO = LocalDate.of(YEAR, 8, 31);
+
+    @Param({"false", "true"})
+    public String columnar;
+
+    private int next;
+
+    @Setup
+    public void setUp() throws Throwable {
+        // each param value runs in its own fork, before Storage is initialized
+        System.setProperty("analytics.columnar", columnar);
+        BenchDatabase.seed();
+    }
+
+    private int nextUser() {
+        next = next % BenchDatabase.USERS + 1;
+        return next;
+    }
+
+    @Benchmark
+    public Map<?, ?> expensesByCategory() throws Throwable {
+        return (Map<?, ?>) App.GET_EXPENSES_BY_CATEGORY.invoke(nextUser());
+    }
+
+    @Benchmark
+    public double[] monthlyTotals() throws Throwable {
+        return (double[]) App.GET_MONTHLY_TOTALS.invoke(nextUser(), YEAR);
+    }
+
+    @Benchmark
+    public double totalByMonth() throws Throwable {
+        return (double) App.GET_TOTAL_BY_MONTH.invoke(nextUser(), YEAR, 6);
+    }
+
+    @Benchmark
+    public double totalByYear() throws Throwable {
+        return (double) App.GET_TOTAL_BY_YEAR.invoke(nextUser(), YEAR);
+    }
+
+    @Benchmark
+    public double totalInRange() throws Throwable {
+        return (double) App.GET_TOTAL_IN_RANGE.invoke(nextUser(), RANGE_FROM, RANGE_TO);
+    }
+}
@@ -0,0 +1,101 @@
+package benchmarks;
+
+import java.io.OutputStream;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.sql.ResultSet;
+import java.time.LocalDate;
+import java.util.Map;
+
+import static java.lang.invoke.MethodType.methodType;
+
+/**
+ * Handles onto the application classes.
+ *
+ * The app lives in the unnamed package, which Java code in a named package
+ * cannot import, and JMH refuses benchmarks in the unnamed package. Constant
+ * method handles bridge the two without measurable overhead once JIT-compiled.
+ * Private helpers (Server.parseBody, JdbcExpenseRepository.mapRow...) are reached
+ * through privateLookupIn so the benchmarks exercise the exact production code.
+ */
+final class App {
+
+    static final Class<?> EXPENSE = type("Expense");
+    static final Class<?> JSON_WRITER = type("JsonWriter");
+
+    // Server
+    static final MethodHandle PARSE_BODY = findStatic("Server", "parseBody", methodType(Map.class, String.class));
+    static final MethodHandle WRITE_EXPENSE = findStatic("Server", "writeExpense",
+            methodType(void.class, JSON_WRITER, EXPENSE));
+
+    // JsonWriter
+    static final MethodHandle NEW_JSON_WRITER = constructor(JSON_WRITER, methodType(void.class, OutputStream.class));
+    static final MethodHandle JSON_RESET = virtual(JSON_WRITER, "reset", methodType(JSON_WRITER, OutputStream.class));
+    static final MethodHandle JSON_BEGIN_ARRAY = virtual(JSON_WRITER, "beginArray", methodType(JSON_WRITER));
+    static final MethodHandle JSON_END_ARRAY = virtual(JSON_WRITER, "endArray", methodType(JSON_WRITER));
+    static final MethodHandle JSON_FLUSH = virtual(JSON_WRITER, "flush", methodType(void.class));
+
+    // Expense
+    static final MethodHandle NEW_EXPENSE = constructor(EXPENSE,
+            methodType(void.class, int.class, int.class, double.class, String.class, LocalDate.class));
+    static final MethodHandle NEW_EMPTY_EXPENSE = constructor(EXPENSE, methodType(void.class));
+    static final MethodHandle SET_EXPENSE_ID = virtual(EXPENSE, "setExpenseId", methodType(void.class, int.class));
+    static final MethodHandle SET_CATEGORY_NAME = virtual(EXPENSE, "setCategoryName", methodType(void.class, String.class));
+
+    // ExpenseManager
+    static final MethodHandle MAP_ROW = findStatic("JdbcExpenseRepository", "mapRow",
+            methodType(void.class, ResultSet.class, EXPENSE));
+    static final MethodHandle ADD_EXPENSES = findStatic("ExpenseManager", "addExpenses",
+            methodType(type("BatchResult"), Iterable.class));
+    static final MethodHandle GET_EXPENSES_BY_CATEGORY = findStatic("ExpenseManager", "getExpensesByCategory",
+            methodType(Map.class, int.class));
+    static final MethodHandle GET_MONTHLY_TOTALS = findStatic("ExpenseManager", "getMonthlyTotals",
+            methodType(double[].class, int.class, int.class));
+    static final MethodHandle GET_TOTAL_BY_MONTH = findStatic("ExpenseManager", "getTotalExpensesByMonth",
+            methodType(double.class, int.class, int.class, int.class));
+    static final MethodHandle GET_TOTAL_BY_YEAR = findStatic("ExpenseManager", "getTotalExpensesByYear",
+            methodType(double.class, int.class, int.class));
+    static final MethodHandle GET_TOTAL_IN_RANGE = findStatic("ExpenseManager", "getTotalInRange",
+            methodType(double.class, int.class, LocalDate.class, LocalDate.class));
+
+    private App() {}
+
+    private static Class<?> type(String name) {
+        try {
+            // don't initialize: DB settings must be in place before DatabaseConnection loads
+            return Class.forName(name, false, App.class.getClassLoader());
+        } catch (ClassNotFoundException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    private static MethodHandles.Lookup lookupIn(Class<?> owner) throws IllegalAccessException {
+        return MethodHandles.privateLookupIn(owner, MethodHandles.lookup());
+    }
+
+    private static MethodHandle findStatic(String owner, String name, MethodType type) {
+        try {
+            Class<?> cls = type(owner);
+            return lookupIn(cls).findStatic(cls, name, type);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    private static MethodHandle virtual(Class<?> owner, String name, MethodType type) {
+        try {
+            return lookupIn(owner).findVirtual(owner, name, type);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    private static MethodHandle constructor(Class<?> owner, MethodType type) {
+        try {
+            return lookupIn(owner).findConstructor(owner, type);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+}
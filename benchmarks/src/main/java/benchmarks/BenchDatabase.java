@@ -0,0 +1,96 @@
+package benchmarks;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+/**
+ * Embedded H2 database seeded with a deterministic expense history.
+ *
+ * {@link #seed()} points DatabaseConnection at it through the db.url/db.user/
+ * db.password properties before any app class that reads them is initialized,
+ * so the real pool, SQL and row mapping run without a MySQL server. Numbers
+ * are for spotting regressions between commits, not for predicting MySQL
+ * latency.
+ */
+final class BenchDatabase {
+
+    static final String URL = "jdbc:h2:mem:bench;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1";
+
+    static final int USERS = 10;
+    static final int EXPENSES_PER_USER = 5_000;
+    static final int FIRST_YEAR = 2023;
+    static final int YEARS = 3;
+
+    private static final String[] DESCRIPTIONS = {
+            "Lunch", "Groceries", "Taxi to airport", "Electricity bill", "Cinema tickets",
+            "Coffee", "Train pass", "New shoes", "Internet", "Concert"
+    };
+
+    private static boolean seeded;
+
+    private BenchDatabase() {}
+
+    // Create and fill the database once per JVM; inserts go through ExpenseManager so the rollup is built too
+    static synchronized void seed() throws Throwable {
+        if (seeded) return;
+        System.setProperty("db.url", URL);
+        System.setProperty("db.user", "sa");
+        System.setProperty("db.password", "");
+        // measure the queries, not SummaryCache hits
+        System.setProperty("summaryCache.maxEntries", "0");
+
+        try (Connection conn = DriverManager.getConnection(URL, "sa", "");
+             Statement stmt = conn.createStatement()) {
+            for (String sql : loadSchema().split(";")) {
+                if (!sql.isBlank()) stmt.execute(sql);
+            }
+            try (PreparedStatement ps = conn.prepareStatement(
+                    "INSERT INTO users (username, email, password, full_name) VALUES (?, ?, ?, ?)")) {
+                for (int u = 1; u <= USERS; u++) {
+                    ps.setString(1, "bench" + u);
+                    ps.setString(2, "bench" + u + "@example.com");
+                    ps.setString(3, "x");
+                    ps.setString(4, "Bench User " + u);
+                    ps.addBatch();
+                }
+                ps.executeBatch();
+            }
+        }
+
+        SplittableRandom random = new SplittableRandom(42);
+        LocalDate start = LocalDate.of(FIRST_YEAR, 1, 1);
+        int days = (int) (LocalDate.of(FIRST_YEAR + YEARS, 1, 1).toEpochDay() - start.toEpochDay());
+        for (int u = 1; u <= USERS; u++) {
+            List<Object> batch = new ArrayList<>(EXPENSES_PER_USER);
+            for (int i = 0; i < EXPENSES_PER_USER; i++) {
+                batch.add(App.NEW_EXPENSE.invoke(u, 1 + random.nextInt(5),
+                        random.nextInt(1, 50_000) / 100.0,
+                        DESCRIPTIONS[random.nextInt(DESCRIPTIONS.length)],
+                        start.plusDays(random.nextInt(days))));
+            }
+            App.ADD_EXPENSES.invoke((Iterable<?>) batch);
+        }
+        seeded = true;
+    }
+
+    static Connection connect() throws SQLException {
+        return DriverManager.getConnection(URL, "sa", "");
+    }
+
+    private static String loadSchema() throws IOException {
+        try (InputStream in = BenchDatabase.class.getResourceAsStream("/bench-schema.sql")) {
+            if (in == null) throw new IOException("bench-schema.sql missing from the classpath");
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+}
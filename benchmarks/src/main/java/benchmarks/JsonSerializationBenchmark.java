@@ -0,0 +1,50 @@
+package benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.io.OutputStream;
+import java.time.LocalDate;
+import java.util.concurrent.TimeUnit;
+
+/** The /getExpenses serialization loop: N expenses through one JsonWriter into a discarding stream. */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JsonSerializationBenchmark {
+
+    @Param({"100", "5000"})
+    public int rows;
+
+    private Object[] expenses;
+    private Object json;
+    private final OutputStream sink = OutputStream.nullOutputStream();
+
+    @Setup
+    public void setUp() throws Throwable {
+        String[] categories = {"Food", "Travel", "Shopping", "Bills", "Entertainment"};
+        expenses = new Object[rows];
+        LocalDate day = LocalDate.of(2025, 1, 1);
+        for (int i = 0; i < rows; i++) {
+            Object e = App.NEW_EXPENSE.invoke(1, 1 + i % 5, 10.0 + i * 0.37, "Expense \"" + i + "\"", day.plusDays(i % 365));
+            App.SET_EXPENSE_ID.invoke(e, i + 1);
+            App.SET_CATEGORY_NAME.invoke(e, categories[i % 5]);
+            expenses[i] = e;
+        }
+        json = App.NEW_JSON_WRITER.invoke(sink);
+    }
+
+    @Benchmark
+    public Object writeExpenses() throws Throwable {
+        Object w = App.JSON_RESET.invoke(json, sink);
+        App.JSON_BEGIN_ARRAY.invoke(w);
+        for (Object e : expenses) {
+            App.WRITE_EXPENSE.invoke(w, e);
+        }
+        App.JSON_END_ARRAY.invoke(w);
+        App.JSON_FLUSH.invoke(w);
+        return w;
+    }
+}
@@ -0,0 +1,27 @@
+package benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/** Form-body decoding done on every POST (Server.parseBody). */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ParseBodyBenchmark {
+
+    @Param({
+            "categoryId=2&amount=123.45&description=Lunch+with+the+team&date=2025-03-01",
+            "username=alice&password=s3cr%40t%21"
+    })
+    public String body;
+
+    @Benchmark
+    public Map<?, ?> parseBody() throws Throwable {
+        return (Map<?, ?>) App.PARSE_BODY.invoke(body);
+    }
+}
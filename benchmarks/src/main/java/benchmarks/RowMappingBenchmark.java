@@ -0,0 +1,55 @@
+package benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JdbcExpenseRepository.mapRow over one user's rows. The result set is fetched once
+ * and rewound each time, so only the column reads and Expense mapping are timed.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RowMappingBenchmark {
+
+    private Connection conn;
+    private PreparedStatement stmt;
+    private ResultSet rs;
+    private Object row;
+
+    @Setup
+    public void setUp() throws Throwable {
+        BenchDatabase.seed();
+        conn = BenchDatabase.connect();
+        stmt = conn.prepareStatement("SELECT e.* FROM expenses e WHERE e.user_id = ? ORDER BY e.expense_date DESC",
+                ResultSet.TYPE_SCROLL_INSENSITIVE, ResultSet.CONCUR_READ_ONLY);
+        stmt.setInt(1, 1);
+        rs = stmt.executeQuery();
+        row = App.NEW_EMPTY_EXPENSE.invoke();
+    }
+
+    @TearDown
+    public void tearDown() throws Exception {
+        rs.close();
+        stmt.close();
+        conn.close();
+    }
+
+    @Benchmark
+    public int mapRows() throws Throwable {
+        rs.beforeFirst();
+        int rows = 0;
+        while (rs.next()) {
+            App.MAP_ROW.invoke(rs, row);
+            rows++;
+        }
+        return rows;
+    }
+}
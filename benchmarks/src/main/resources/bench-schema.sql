@@ -0,0 +1,41 @@
+-- H2 (MODE=MySQL) version of db/schema.sql for the JMH benchmarks.
+-- Keep the tables and indexes in step with db/schema.sql.
+
+CREATE TABLE IF NOT EXISTS users (
+    user_id INT AUTO_INCREMENT PRIMARY KEY,
+    username VARCHAR(50) NOT NULL UNIQUE,
+    email VARCHAR(100) NOT NULL UNIQUE,
+    password VARCHAR(255) NOT NULL,
+    full_name VARCHAR(100) NOT NULL
+);
+
+CREATE TABLE IF NOT EXISTS categories (
+    category_id INT AUTO_INCREMENT PRIMARY KEY,
+    category_name VARCHAR(50) NOT NULL
+);
+
+CREATE TABLE IF NOT EXISTS expenses (
+    expense_id INT AUTO_INCREMENT PRIMARY KEY,
+    user_id INT NOT NULL,
+    category_id INT NOT NULL,
+    amount DECIMAL(10,2) NOT NULL,
+    description VARCHAR(255),
+    expense_date DATE NOT NULL,
+    FOREIGN KEY (user_id) REFERENCES users(user_id),
+    FOREIGN KEY (category_id) REFERENCES categories(category_id)
+);
+
+CREATE INDEX IF NOT EXISTS idx_expenses_user_date ON expenses (user_id, expense_date, expense_id);
+CREATE INDEX IF NOT EXISTS idx_expenses_user_cat_date ON expenses (user_id, category_id, expense_date);
+
+CREATE TABLE IF NOT EXISTS expense_rollup (
+    user_id INT NOT NULL,
+    category_id INT NOT NULL,
+    ym INT NOT NULL,
+    total DECIMAL(14,2) NOT NULL,
+    expense_count INT NOT NULL,
+    PRIMARY KEY (user_id, ym, category_id)
+);
+
+INSERT INTO categories (category_name) VALUES
+('Food'), ('Travel'), ('Shopping'), ('Bills'), ('Entertainment');
@@ -0,0 +1,9 @@
+-- Secondary indexes for per-user listing, paging and date-range aggregates.
+-- InnoDB appends expense_id to both, so (expense_date, expense_id) keyset paging is covered too.
+--
+-- Check with ExplainCheck: every query should show type=range or ref on one of these keys,
+-- never type=ALL or a full scan of the user's rows.
+
+CREATE INDEX idx_expenses_user_date ON expenses (user_id, expense_date);
+
+CREATE INDEX idx_expenses_user_cat_date ON expenses (user_id, category_id, expense_date);
@@ -0,0 +1,16 @@
+-- Pre-aggregated totals per user / category / month (ym = yyyymm).
+-- ExpenseManager keeps it in sync transactionally; the backfill below seeds existing data.
+
+CREATE TABLE expense_rollup (
+    user_id INT NOT NULL,
+    category_id INT NOT NULL,
+    ym INT NOT NULL,
+    total DECIMAL(14,2) NOT NULL,
+    expense_count INT NOT NULL,
+    PRIMARY KEY (user_id, ym, category_id)
+);
+
+INSERT INTO expense_rollup (user_id, category_id, ym, total, expense_count)
+SELECT user_id, category_id, YEAR(expense_date) * 100 + MONTH(expense_date), SUM(amount), COUNT(*)
+FROM expenses
+GROUP BY user_id, category_id, YEAR(expense_date) * 100 + MONTH(expense_date);
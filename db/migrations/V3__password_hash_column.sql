@@ -0,0 +1,4 @@
+-- Room for salted PBKDF2 hashes (pbkdf2$<iterations>$<salt>$<hash>).
+-- Existing plain-text passwords keep working and are rehashed on the user's next login.
+
+ALTER TABLE users MODIFY password VARCHAR(255) NOT NULL;
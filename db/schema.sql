@@ -7,7 +7,7 @@ CREATE TABLE IF NOT EXISTS users (
     user_id INT AUTO_INCREMENT PRIMARY KEY,
     username VARCHAR(50) NOT NULL UNIQUE,
     email VARCHAR(100) NOT NULL UNIQUE,
-    password VARCHAR(100) NOT NULL,
+    password VARCHAR(255) NOT NULL, -- pbkdf2$<iterations>$<salt>$<hash>
     full_name VARCHAR(100) NOT NULL
 );
 
@@ -25,10 +25,37 @@ CREATE TABLE IF NOT EXISTS expenses (
     amount DECIMAL(10,2) NOT NULL,
     description VARCHAR(255),
     expense_date DATE NOT NULL,
+    -- InnoDB appends expense_id, so this also serves keyset paging on (expense_date, expense_id)
+    INDEX idx_expenses_user_date (user_id, expense_date),
+    INDEX idx_expenses_user_cat_date (user_id, category_id, expense_date),
     FOREIGN KEY (user_id) REFERENCES users(user_id),
     FOREIGN KEY (category_id) REFERENCES categories(category_id)
 );
 
+-- Per user / category / month totals, maintained by ExpenseManager in the same transaction
+-- as every insert and delete (ym = yyyymm). Repair with: java ExpenseRollup rebuild
+CREATE TABLE IF NOT EXISTS expense_rollup (
+    user_id INT NOT NULL,
+    category_id INT NOT NULL,
+    ym INT NOT NULL,
+    total DECIMAL(14,2) NOT NULL,
+    expense_count INT NOT NULL,
+    PRIMARY KEY (user_id, ym, category_id)
+);
+
+-- Applied migrations (see db/migrations and SchemaMigrator)
+CREATE TABLE IF NOT EXISTS schema_version (
+    version INT PRIMARY KEY,
+    description VARCHAR(200) NOT NULL,
+    applied_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP
+);
+
+-- This file already contains everything up to the latest migration
+INSERT IGNORE INTO schema_version (version, description) VALUES
+(1, 'expense indexes'),
+(2, 'expense rollup'),
+(3, 'password hash column');
+
 -- Insert Default Categories
 INSERT INTO categories (category_name) VALUES
 ('Food'), ('Travel'), ('Shopping'), ('Bills'), ('Entertainment');
@@ -0,0 +1,27 @@
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Per-item outcome of a bulk insert, in the same order as the input.
+ */
+public class BatchResult {
+    private final List<String> errors = new ArrayList<>(); // null = inserted
+    private int failed;
+
+    // Reserve a slot for the next item and return its index
+    int add() {
+        errors.add(null);
+        return errors.size() - 1;
+    }
+
+    void fail(int index, String error) {
+        if (errors.set(index, error) == null) failed++;
+    }
+
+    public int size() { return errors.size(); }
+    public int getSucceeded() { return errors.size() - failed; }
+    public int getFailed() { return failed; }
+
+    public boolean isSuccess(int index) { return errors.get(index) == null; }
+    public String getError(int index) { return errors.get(index); }
+}
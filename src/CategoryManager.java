@@ -0,0 +1,123 @@
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.sql.SQLException;
+import java.util.*;
+
+/**
+ * In-memory registry of the categories table.
+ *
+ * Loaded once into an immutable snapshot (id -> name array, name -> id map) and
+ * swapped atomically on refresh, so lookups are lock-free and need no JOIN.
+ */
+public class CategoryManager {
+
+    // Don't hammer storage if callers keep asking for an id that really doesn't exist
+    private static final long MISS_REFRESH_INTERVAL_MS = 10_000;
+
+    private record Snapshot(String[] namesById, Map<String, Integer> idsByName, List<Category> categories, String etag) {}
+
+    private static volatile Snapshot snapshot;
+    private static volatile long lastMissRefresh;
+
+    // ✅ Name for a category id, or "Unknown" if it doesn't exist
+    public static String getCategoryName(int categoryId) {
+        String name = lookupName(current(), categoryId);
+        if (name == null && refreshOnMiss()) {
+            name = lookupName(current(), categoryId);
+        }
+        return name != null ? name : "Unknown";
+    }
+
+    // ✅ Id for a category name, or 0 if it doesn't exist
+    public static int getCategoryId(String categoryName) {
+        Integer id = current().idsByName().get(categoryName);
+        if (id == null && refreshOnMiss()) {
+            id = current().idsByName().get(categoryName);
+        }
+        return id != null ? id : 0;
+    }
+
+    // ✅ All categories, ordered by id
+    public static List<Category> getCategories() {
+        return current().categories();
+    }
+
+    // Changes whenever the set of categories changes; used for HTTP ETags
+    public static String getEtag() {
+        return current().etag();
+    }
+
+    // ✅ Add a category and publish it to the registry
+    public static boolean addCategory(String categoryName) {
+        try {
+            boolean added = Storage.categories().insert(categoryName);
+            refresh();
+            return added;
+        } catch (SQLException e) {
+            System.out.println("❌ Error adding category: " + e.getMessage());
+            return false;
+        }
+    }
+
+    // ✅ Reload the registry from storage (keeps the old snapshot if that fails)
+    public static synchronized void refresh() {
+        List<Category> categories;
+        try {
+            categories = Storage.categories().loadAll();
+        } catch (SQLException e) {
+            System.out.println("⚠️ Error loading categories: " + e.getMessage());
+            if (snapshot != null) return;
+            categories = List.of();
+        }
+        snapshot = build(categories);
+    }
+
+    private static Snapshot current() {
+        Snapshot s = snapshot;
+        if (s == null) {
+            synchronized (CategoryManager.class) {
+                if (snapshot == null) refresh();
+                s = snapshot;
+            }
+        }
+        return s;
+    }
+
+    private static String lookupName(Snapshot s, int categoryId) {
+        return categoryId >= 0 && categoryId < s.namesById().length ? s.namesById()[categoryId] : null;
+    }
+
+    // A category added by another process shows up on the first lookup that misses
+    private static boolean refreshOnMiss() {
+        long now = System.currentTimeMillis();
+        if (now - lastMissRefresh < MISS_REFRESH_INTERVAL_MS) return false;
+        lastMissRefresh = now;
+        refresh();
+        return true;
+    }
+
+    private static Snapshot build(List<Category> categories) {
+        int maxId = 0;
+        for (Category c : categories) maxId = Math.max(maxId, c.getCategoryId());
+
+        String[] names = new String[maxId + 1];
+        Map<String, Integer> ids = new HashMap<>();
+        StringBuilder fingerprint = new StringBuilder();
+        for (Category c : categories) {
+            names[c.getCategoryId()] = c.getCategoryName();
+            ids.putIfAbsent(c.getCategoryName(), c.getCategoryId());
+            fingerprint.append(c.getCategoryId()).append('=').append(c.getCategoryName()).append('\n');
+        }
+        return new Snapshot(names, Map.copyOf(ids), List.copyOf(categories), "\"" + sha256(fingerprint.toString()) + "\"");
+    }
+
+    private static String sha256(String text) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(text.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest, 0, 12);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
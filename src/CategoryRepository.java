@@ -0,0 +1,11 @@
+import java.sql.SQLException;
+import java.util.List;
+
+/** Storage for categories, behind the CategoryManager registry. */
+public interface CategoryRepository {
+
+    // Ordered by id
+    List<Category> loadAll() throws SQLException;
+
+    boolean insert(String categoryName) throws SQLException;
+}
@@ -0,0 +1,374 @@
+import java.io.IOException;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.*;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.IntStream;
+
+/**
+ * Column-oriented in-memory copy of the expenses, used to answer the
+ * aggregate queries (-Danalytics.columnar=true).
+ *
+ * Wraps the real repository: writes go to it first and are then mirrored
+ * into primitive columns (user, category, cents, epoch day, month, dictionary
+ * id of the description). Aggregates are plain loops over int/long arrays
+ * with no boxing; a user with more than analytics.parallelThreshold rows is
+ * split into chunks summed on the common fork-join pool. Row reads (lists,
+ * pages, streams) still go to the wrapped repository.
+ *
+ * Deleted rows are tombstoned in a bitset rather than removed, so row
+ * positions never move.
+ */
+public class ColumnarExpenseRepository implements ExpenseRepository {
+
+    private static final int PARALLEL_THRESHOLD = Integer.getInteger("analytics.parallelThreshold", 50_000);
+
+    public record Stats(int rows, int liveRows, int users, int distinctDescriptions) {}
+
+    // Accumulates rows positions[from..to) into acc; acc is private to the calling chunk
+    @FunctionalInterface
+    private interface Kernel {
+        void scan(int[] positions, int from, int to, long[] acc);
+    }
+
+    // Growable int array, so per-user row lists need no Integer boxing
+    private static final class IntList {
+        int[] values = new int[16];
+        int size;
+
+        void add(int v) {
+            if (size == values.length) values = Arrays.copyOf(values, size * 2);
+            values[size++] = v;
+        }
+    }
+
+    private final ExpenseRepository delegate;
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    // one entry per row ever loaded or inserted
+    private int[] expenseIds = new int[1024];
+    private int[] userIds = new int[1024];
+    private int[] categoryIds = new int[1024];
+    private long[] cents = new long[1024];
+    private int[] epochDays = new int[1024];
+    private int[] months = new int[1024]; // year * 12 + month - 1
+    private int[] descriptionIds = new int[1024];
+    private long[] tombstones = new long[16];
+    private int rows;
+    private int deleted;
+    private int maxCategoryId;
+
+    private final Map<String, Integer> descriptionDictionary = new HashMap<>();
+    private final List<String> descriptions = new ArrayList<>();
+    private final Map<Integer, IntList> rowsByUser = new HashMap<>();
+    private final Map<Integer, Integer> rowByExpenseId = new HashMap<>(); // expense_id -> row; ids can be sparse
+
+    // set if a write could not be mirrored; aggregates then fall back to the delegate
+    private volatile boolean stale;
+
+    private ColumnarExpenseRepository(ExpenseRepository delegate) {
+        this.delegate = delegate;
+    }
+
+    // ✅ Build the columns from every expense in the delegate
+    public static ColumnarExpenseRepository load(ExpenseRepository delegate) throws SQLException {
+        ColumnarExpenseRepository store = new ColumnarExpenseRepository(delegate);
+        long start = System.nanoTime();
+        try {
+            delegate.forEachExpense(store::append);
+        } catch (IOException e) {
+            throw new SQLException("Could not load expenses", e); // append does no I/O
+        }
+        System.out.printf("📊 Columnar analytics: %,d expense(s) loaded in %d ms%n",
+                store.rows, (System.nanoTime() - start) / 1_000_000);
+        return store;
+    }
+
+    public Stats stats() {
+        lock.readLock().lock();
+        try {
+            return new Stats(rows, rows - deleted, rowsByUser.size(), descriptions.size());
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // ---------------- WRITES (delegate first, then mirror) ----------------
+
+    @Override
+    public boolean insert(Expense expense) throws SQLException {
+        boolean inserted = delegate.insert(expense);
+        if (inserted) append(expense);
+        return inserted;
+    }
+
+    @Override
+    public String[] insertBatch(List<Expense> batch) throws SQLException {
+        String[] errors = delegate.insertBatch(batch);
+        lock.writeLock().lock();
+        try {
+            for (int i = 0; i < batch.size(); i++) {
+                if (errors[i] == null) append(batch.get(i));
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+        return errors;
+    }
+
+    @Override
+    public boolean delete(int expenseId, int userId) throws SQLException {
+        boolean removed = delegate.delete(expenseId, userId);
+        if (removed) {
+            lock.writeLock().lock();
+            try {
+                Integer row = rowByExpenseId.get(expenseId);
+                if (row == null) {
+                    stale = true;
+                    System.out.println("⚠️ Columnar analytics lost track of expense " + expenseId + ", falling back to storage");
+                } else if (!isDeleted(row)) {
+                    tombstones[row >>> 6] |= 1L << row;
+                    deleted++;
+                }
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+        return removed;
+    }
+
+    private void append(Expense expense) {
+        int expenseId = expense.getExpenseId();
+        if (expenseId <= 0) {
+            stale = true; // no generated key, so a later delete couldn't find this row
+            System.out.println("⚠️ Columnar analytics got an expense without an id, falling back to storage");
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            if (rows == userIds.length) grow();
+            LocalDate date = expense.getExpenseDate();
+            int row = rows++;
+            expenseIds[row] = expenseId;
+            userIds[row] = expense.getUserId();
+            categoryIds[row] = expense.getCategoryId();
+            maxCategoryId = Math.max(maxCategoryId, expense.getCategoryId());
+            cents[row] = ExpenseRollup.toCents(expense.getAmount());
+            epochDays[row] = (int) date.toEpochDay();
+            months[row] = date.getYear() * 12 + date.getMonthValue() - 1;
+            descriptionIds[row] = encodeDescription(expense.getDescription());
+            rowsByUser.computeIfAbsent(expense.getUserId(), k -> new IntList()).add(row);
+
+            rowByExpenseId.put(expenseId, row);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private int encodeDescription(String description) {
+        if (description == null) return -1;
+        Integer id = descriptionDictionary.get(description);
+        if (id == null) {
+            id = descriptions.size();
+            descriptions.add(description);
+            descriptionDictionary.put(description, id);
+        }
+        return id;
+    }
+
+    private void grow() {
+        int capacity = userIds.length * 2;
+        expenseIds = Arrays.copyOf(expenseIds, capacity);
+        userIds = Arrays.copyOf(userIds, capacity);
+        categoryIds = Arrays.copyOf(categoryIds, capacity);
+        cents = Arrays.copyOf(cents, capacity);
+        epochDays = Arrays.copyOf(epochDays, capacity);
+        months = Arrays.copyOf(months, capacity);
+        descriptionIds = Arrays.copyOf(descriptionIds, capacity);
+        tombstones = Arrays.copyOf(tombstones, (capacity + 63) >>> 6);
+    }
+
+    private boolean isDeleted(int row) {
+        return (tombstones[row >>> 6] & (1L << row)) != 0;
+    }
+
+    // ---------------- AGGREGATES ----------------
+
+    @Override
+    public Map<Integer, Double> totalsByCategory(int userId) throws SQLException {
+        if (stale) return delegate.totalsByCategory(userId);
+        lock.readLock().lock();
+        try {
+            int width = maxCategoryId + 1;
+            int[] cat = categoryIds;
+            long[] amount = cents;
+            long[] dead = tombstones;
+            // acc[c] = cents for category c, acc[width + c] = row count
+            long[] acc = reduce(userId, 2 * width, (positions, from, to, sums) -> {
+                for (int i = from; i < to; i++) {
+                    int row = positions[i];
+                    if ((dead[row >>> 6] & (1L << row)) != 0) continue;
+                    sums[cat[row]] += amount[row];
+                    sums[width + cat[row]]++;
+                }
+            });
+            Map<Integer, Double> totals = new LinkedHashMap<>();
+            for (int c = 0; c < width; c++) {
+                if (acc[width + c] > 0) totals.put(c, acc[c] / 100.0);
+            }
+            return totals;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public double totalForMonths(int userId, int fromYm, int toYm) throws SQLException {
+        if (stale) return delegate.totalForMonths(userId, fromYm, toYm);
+        int first = monthIndex(fromYm);
+        int last = monthIndex(toYm);
+        lock.readLock().lock();
+        try {
+            int[] month = months;
+            long[] amount = cents;
+            long[] dead = tombstones;
+            return reduce(userId, 1, (positions, from, to, sums) -> {
+                for (int i = from; i < to; i++) {
+                    int row = positions[i];
+                    if (month[row] >= first && month[row] <= last && (dead[row >>> 6] & (1L << row)) == 0) {
+                        sums[0] += amount[row];
+                    }
+                }
+            })[0] / 100.0;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public Map<Integer, Double> totalsByMonth(int userId, int fromYm, int toYm) throws SQLException {
+        if (stale) return delegate.totalsByMonth(userId, fromYm, toYm);
+        int first = monthIndex(fromYm);
+        int last = monthIndex(toYm);
+        int width = Math.max(0, last - first + 1);
+        lock.readLock().lock();
+        try {
+            int[] month = months;
+            long[] amount = cents;
+            long[] dead = tombstones;
+            // acc[m] = cents, acc[width + m] = row count, m = months since fromYm
+            long[] acc = reduce(userId, 2 * width, (positions, from, to, sums) -> {
+                for (int i = from; i < to; i++) {
+                    int row = positions[i];
+                    int m = month[row] - first;
+                    if (m < 0 || m >= width || (dead[row >>> 6] & (1L << row)) != 0) continue;
+                    sums[m] += amount[row];
+                    sums[width + m]++;
+                }
+            });
+            Map<Integer, Double> totals = new LinkedHashMap<>();
+            for (int m = 0; m < width; m++) {
+                int index = first + m;
+                if (acc[width + m] > 0) totals.put(ExpenseRollup.monthKey(index / 12, index % 12 + 1), acc[m] / 100.0);
+            }
+            return totals;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public double totalInRange(int userId, int categoryId, LocalDate fromDate, LocalDate toDate) throws SQLException {
+        if (stale) return delegate.totalInRange(userId, categoryId, fromDate, toDate);
+        long firstDay = fromDate.toEpochDay();
+        long endDay = toDate.toEpochDay();
+        lock.readLock().lock();
+        try {
+            int[] day = epochDays;
+            int[] cat = categoryIds;
+            long[] amount = cents;
+            long[] dead = tombstones;
+            return reduce(userId, 1, (positions, from, to, sums) -> {
+                for (int i = from; i < to; i++) {
+                    int row = positions[i];
+                    if (day[row] >= firstDay && day[row] < endDay
+                            && (categoryId == 0 || cat[row] == categoryId)
+                            && (dead[row >>> 6] & (1L << row)) == 0) {
+                        sums[0] += amount[row];
+                    }
+                }
+            })[0] / 100.0;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Run kernel over a user's rows; big users are split into chunks and summed in parallel.
+    // Caller holds the read lock, which keeps the arrays stable while the workers run.
+    private long[] reduce(int userId, int width, Kernel kernel) {
+        IntList list = rowsByUser.get(userId);
+        if (list == null) return new long[width];
+        int[] positions = list.values;
+        int n = list.size;
+        if (n < PARALLEL_THRESHOLD) {
+            long[] acc = new long[width];
+            kernel.scan(positions, 0, n, acc);
+            return acc;
+        }
+        int chunks = Math.min(n / (PARALLEL_THRESHOLD / 4) + 1, Runtime.getRuntime().availableProcessors() * 4);
+        int chunkSize = (n + chunks - 1) / chunks;
+        return IntStream.range(0, chunks).parallel()
+                .mapToObj(c -> {
+                    long[] acc = new long[width];
+                    kernel.scan(positions, c * chunkSize, Math.min(n, (c + 1) * chunkSize), acc);
+                    return acc;
+                })
+                .reduce((a, b) -> {
+                    for (int i = 0; i < a.length; i++) a[i] += b[i];
+                    return a;
+                })
+                .orElseGet(() -> new long[width]);
+    }
+
+    private static int monthIndex(int ym) {
+        return (ym / 100) * 12 + ym % 100 - 1;
+    }
+
+    // ---------------- ROW READS (delegated) ----------------
+
+    @Override
+    public int forEachExpense(ExpenseVisitor visitor) throws SQLException, IOException {
+        return delegate.forEachExpense(visitor);
+    }
+
+    @Override
+    public int forEachUserExpense(int userId, boolean reuseRow, ExpenseVisitor visitor) throws SQLException, IOException {
+        return delegate.forEachUserExpense(userId, reuseRow, visitor);
+    }
+
+    @Override
+    public int forEachExpenseInRange(int userId, LocalDate from, LocalDate to, boolean reuseRow,
+                                     ExpenseVisitor visitor) throws SQLException, IOException {
+        return delegate.forEachExpenseInRange(userId, from, to, reuseRow, visitor);
+    }
+
+    @Override
+    public List<Expense> page(int userId, ExpenseCursor cursor, int limit) throws SQLException {
+        return delegate.page(userId, cursor, limit);
+    }
+
+    @Override
+    public List<Expense> recent(int userId, int limit) throws SQLException {
+        return delegate.recent(userId, limit);
+    }
+
+    @Override
+    public List<Expense> query(ExpenseQuery query) throws SQLException {
+        return delegate.query(query);
+    }
+
+    @Override
+    public int count(ExpenseQuery query) throws SQLException {
+        return delegate.count(query);
+    }
+}
@@ -0,0 +1,621 @@
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.time.DateTimeException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Bulk import of bank-statement CSVs.
+ *
+ * The file is memory-mapped in windows of import.windowBytes and parsed
+ * straight from the mapping: fields are kept as byte offsets, amounts and
+ * dates are parsed from the bytes, and category names are matched against
+ * an in-memory table, so the only objects made per row are the Expense, its
+ * date and its description. Rows go to ExpenseManager.addExpenses in
+ * batches of import.batchSize (one transaction each on MySQL).
+ *
+ * After every batch the byte offset reached is saved to <file>.checkpoint;
+ * rerunning the same import resumes from there. A crash between a commit
+ * and the checkpoint write re-imports at most that one batch.
+ *
+ * Expected columns (header row, any order, case-insensitive): date
+ * (yyyy-MM-dd or dd/MM/yyyy), amount, category, and optionally
+ * description/memo.
+ *
+ * Spending is stored as positive amounts. Which sign means spending in the
+ * file is --debit-sign; if not given it is negative when the first window
+ * holds any negative amount (a signed bank statement) and positive
+ * otherwise (a plain expense list, such as our own export). Rows of the
+ * other sign are credits (salary, refunds): skipped and counted.
+ *
+ * Usage: java CsvImporter <file.csv> <username> [--create-categories]
+ *        [--default-category=NAME] [--batch-size=N] [--debit-sign=negative|positive] [--restart]
+ */
+public class CsvImporter {
+
+    private static final int WINDOW_BYTES = Integer.getInteger("import.windowBytes", 64 * 1024 * 1024);
+    private static final int DEFAULT_BATCH_SIZE = Integer.getInteger("import.batchSize", 5_000);
+    private static final long PROGRESS_MS = Long.getLong("import.progressMs", 1_000);
+    private static final int MAX_REPORTED_ERRORS = 10;
+
+    // Sign of the amounts that are spending
+    public enum DebitSign { NEGATIVE, POSITIVE }
+
+    // createCategories: add unknown names to the category table; otherwise they fall back to defaultCategory.
+    // debitSign null = work it out from the file.
+    public record Options(int batchSize, String defaultCategory, boolean createCategories, boolean restart,
+                          DebitSign debitSign) {
+        public static Options defaults() {
+            return new Options(DEFAULT_BATCH_SIZE, null, false, false, null);
+        }
+    }
+
+    // rows/imported/failed/credits include earlier runs of a resumed import; processed is this run only
+    public record Summary(long rows, long imported, long failed, long credits, boolean completed, long processed,
+                          long elapsedNanos) {
+        public double rowsPerSecond() {
+            return elapsedNanos == 0 ? 0 : processed * 1e9 / elapsedNanos;
+        }
+    }
+
+    // ---------------- HEADLESS ENTRY POINT ----------------
+
+    public static void main(String[] args) {
+        if (args.length < 2) {
+            System.out.println("Usage: java CsvImporter <file.csv> <username> [--create-categories]"
+                    + " [--default-category=NAME] [--batch-size=N] [--debit-sign=negative|positive] [--restart]");
+            System.exit(2);
+        }
+        Options options = Options.defaults();
+        for (int i = 2; i < args.length; i++) {
+            String arg = args[i];
+            if (arg.equals("--create-categories")) {
+                options = new Options(options.batchSize(), options.defaultCategory(), true, options.restart(),
+                        options.debitSign());
+            } else if (arg.equals("--restart")) {
+                options = new Options(options.batchSize(), options.defaultCategory(), options.createCategories(), true,
+                        options.debitSign());
+            } else if (arg.startsWith("--default-category=")) {
+                options = new Options(options.batchSize(), arg.substring(19), options.createCategories(),
+                        options.restart(), options.debitSign());
+            } else if (arg.startsWith("--batch-size=")) {
+                options = new Options(Integer.parseInt(arg.substring(13)), options.defaultCategory(),
+                        options.createCategories(), options.restart(), options.debitSign());
+            } else if (arg.equals("--debit-sign=negative") || arg.equals("--debit-sign=positive")) {
+                options = new Options(options.batchSize(), options.defaultCategory(), options.createCategories(),
+                        options.restart(), arg.endsWith("negative") ? DebitSign.NEGATIVE : DebitSign.POSITIVE);
+            } else {
+                System.out.println("❌ Unknown option: " + arg);
+                System.exit(2);
+            }
+        }
+
+        User user = UserManager.findUser(args[1]);
+        if (user == null) {
+            System.out.println("❌ No such user: " + args[1]);
+            System.exit(1);
+        }
+
+        Summary summary;
+        try {
+            summary = importFile(Path.of(args[0]), user.getUserId(), options);
+        } catch (IOException | IllegalArgumentException e) {
+            System.out.println("❌ Import failed: " + e.getMessage());
+            summary = null;
+        } finally {
+            Storage.shutdown();
+        }
+        System.exit(summary != null && summary.completed() ? 0 : 1);
+    }
+
+    // ---------------- IMPORT ----------------
+
+    // ✅ Import (or resume importing) a CSV for one user, printing progress as it goes
+    public static Summary importFile(Path csv, int userId, Options options) throws IOException {
+        return new CsvImporter(csv, userId, options).run();
+    }
+
+    private final Path csv;
+    private final Path checkpointFile;
+    private final int userId;
+    private final Options options;
+    private final CategoryTable categories;
+
+    // Current record, as [start, end) offsets into the mapped window
+    private int[] fieldStart = new int[16];
+    private int[] fieldEnd = new int[16];
+    private boolean[] fieldEscaped = new boolean[16];
+    private int fieldCount;
+    private byte[] scratch = new byte[256];
+
+    private int dateCol = -1, amountCol = -1, categoryCol = -1, descriptionCol = -1;
+    private DebitSign debitSign;
+
+    private final List<Expense> batch = new ArrayList<>();
+    private long[] batchLines;
+    private long lineNumber;
+    private long rows, imported, failed, credits;
+    private int reportedErrors;
+
+    private long startNanos, lastProgress;
+    private long rowsAtStart;
+
+    private LocalDate lastDate; // statements are sorted by date, so most rows reuse the previous one
+    private int lastDateKey;
+
+    private CsvImporter(Path csv, int userId, Options options) {
+        this.csv = csv;
+        this.checkpointFile = csv.resolveSibling(csv.getFileName() + ".checkpoint");
+        this.userId = userId;
+        this.options = options.batchSize() > 0 ? options : new Options(DEFAULT_BATCH_SIZE,
+                options.defaultCategory(), options.createCategories(), options.restart(), options.debitSign());
+        this.batchLines = new long[this.options.batchSize()];
+        this.categories = new CategoryTable(options.createCategories(), options.defaultCategory());
+    }
+
+    private Summary run() throws IOException {
+        BasicFileAttributes attrs = Files.readAttributes(csv, BasicFileAttributes.class);
+        long size = attrs.size();
+        long modified = attrs.lastModifiedTime().toMillis();
+        startNanos = lastProgress = System.nanoTime();
+
+        try (FileChannel channel = FileChannel.open(csv, StandardOpenOption.READ)) {
+            long pos = readHeader(channel, size);
+
+            Checkpoint resume = options.restart() ? null : Checkpoint.load(checkpointFile);
+            if (resume != null && resume.matches(size, modified, userId)) {
+                pos = resume.offset();
+                lineNumber = resume.line();
+                imported = resume.imported();
+                failed = resume.failed();
+                credits = resume.credits();
+                rows = imported + failed + credits;
+                System.out.printf("↩️ Resuming %s at line %,d (%,d rows already imported)%n", csv, lineNumber + 1, imported);
+            } else if (resume != null) {
+                System.out.println("⚠️ Ignoring checkpoint for a different file, size or user: " + checkpointFile);
+            }
+
+            rowsAtStart = rows;
+            while (pos < size) {
+                int length = (int) Math.min(WINDOW_BYTES, size - pos);
+                boolean eof = pos + length == size;
+                MappedByteBuffer window = channel.map(FileChannel.MapMode.READ_ONLY, pos, length);
+
+                int i = 0;
+                while (i < length) {
+                    int next = parseRecord(window, i, length, eof);
+                    if (next < 0) break; // record continues in the next window
+                    lineNumber++;
+                    i = next;
+                    addRow(window);
+                    if (batch.size() == options.batchSize() && !flush(pos + i, size, modified)) {
+                        return summary(false);
+                    }
+                }
+                if (i == 0) {
+                    throw new IOException("Line " + (lineNumber + 1) + " is longer than the "
+                            + WINDOW_BYTES + "-byte import window (-Dimport.windowBytes)");
+                }
+                pos += i;
+            }
+            if (!flush(size, size, modified)) return summary(false);
+        }
+
+        Files.deleteIfExists(checkpointFile);
+        Summary summary = summary(true);
+        System.out.printf("✅ Imported %,d of %,d rows from %s in %.1f s (%,.0f rows/s), %,d failed, %,d credits skipped%n",
+                summary.imported(), summary.rows(), csv, summary.elapsedNanos() / 1e9,
+                summary.rowsPerSecond(), summary.failed(), summary.credits());
+        return summary;
+    }
+
+    private Summary summary(boolean completed) {
+        return new Summary(rows, imported, failed, credits, completed, rows - rowsAtStart, System.nanoTime() - startNanos);
+    }
+
+    // Rate counts only this run's rows, so a resumed import doesn't report an inflated speed
+    private void printProgress(long offset, long size) {
+        long now = System.nanoTime();
+        if (now - lastProgress < PROGRESS_MS * 1_000_000L) return;
+        lastProgress = now;
+        double seconds = (now - startNanos) / 1e9;
+        System.out.printf("⏳ %3d%% | %,d rows | %,.0f rows/s%n",
+                (int) (offset * 100 / Math.max(1, size)), rows, (rows - rowsAtStart) / Math.max(seconds, 1e-9));
+    }
+
+    // Header row -> column positions and debit sign; returns the offset of the first data row
+    private long readHeader(FileChannel channel, long size) throws IOException {
+        int length = (int) Math.min(WINDOW_BYTES, size);
+        MappedByteBuffer window = channel.map(FileChannel.MapMode.READ_ONLY, 0, length);
+        int offset = 0;
+        if (length >= 3 && window.get(0) == (byte) 0xEF && window.get(1) == (byte) 0xBB && window.get(2) == (byte) 0xBF) {
+            offset = 3; // UTF-8 byte order mark from spreadsheet exports
+        }
+        int end = parseRecord(window, offset, length, length == size);
+        if (end < 0 || length == 0) throw new IOException("No header row in " + csv);
+        lineNumber = 1;
+
+        boolean debitColumn = false;
+        for (int f = 0; f < fieldCount; f++) {
+            String name = text(window, f).toLowerCase(Locale.ROOT);
+            switch (name) {
+                case "date", "transaction date", "posted date", "expense_date" -> dateCol = f;
+                case "amount" -> amountCol = f;
+                case "debit", "withdrawal" -> {
+                    amountCol = f;
+                    debitColumn = true;
+                }
+                case "category", "category_name" -> categoryCol = f;
+                case "description", "desc", "memo", "narration", "details" -> descriptionCol = f;
+                default -> { }
+            }
+        }
+        if (dateCol < 0 || amountCol < 0) {
+            throw new IOException("Header must name a date and an amount column: " + csv);
+        }
+        if (categoryCol < 0 && options.defaultCategory() == null) {
+            throw new IOException("No category column; pass a default category for rows without one");
+        }
+
+        debitSign = options.debitSign();
+        if (debitSign == null) {
+            debitSign = debitColumn || !anyNegativeAmount(window, end, length, length == size)
+                    ? DebitSign.POSITIVE : DebitSign.NEGATIVE;
+        }
+        System.out.println(debitSign == DebitSign.NEGATIVE
+                ? "ℹ️ Negative amounts are spending; positive ones are credits and will be skipped (--debit-sign)"
+                : "ℹ️ Positive amounts are spending; negative ones are credits and will be skipped (--debit-sign)");
+        return end;
+    }
+
+    // Whether any data row in the window has a negative amount (the file is a signed statement).
+    // Only the first window is looked at, so a resumed import decides the same way.
+    private boolean anyNegativeAmount(MappedByteBuffer window, int pos, int length, boolean eof) {
+        while (pos < length) {
+            int next = parseRecord(window, pos, length, eof);
+            if (next < 0) break;
+            pos = next;
+            if (columnPresent(amountCol)) {
+                long cents = parseCents(window, amountCol);
+                if (cents != Long.MIN_VALUE && cents < 0) return true;
+            }
+        }
+        return false;
+    }
+
+    // ---------------- ROWS ----------------
+
+    private void addRow(MappedByteBuffer window) {
+        if (fieldCount == 1 && fieldEnd[0] == fieldStart[0]) {
+            return; // blank line
+        }
+        rows++;
+        String problem = null;
+        long cents = columnPresent(amountCol) ? parseCents(window, amountCol) : Long.MIN_VALUE;
+        LocalDate date = columnPresent(dateCol) ? parseDate(window, dateCol) : null;
+        int categoryId = columnPresent(categoryCol)
+                ? categories.resolve(window, fieldStart[categoryCol], fieldEnd[categoryCol], this)
+                : categories.defaultId();
+
+        if (cents == Long.MIN_VALUE) problem = "Invalid amount";
+        else if (date == null) problem = "Invalid date";
+        else if (categoryId <= 0) problem = "Unknown category";
+
+        if (problem != null) {
+            fail(lineNumber, problem);
+            return;
+        }
+        if (debitSign == DebitSign.NEGATIVE ? cents > 0 : cents < 0) {
+            credits++; // money in, not an expense
+            return;
+        }
+        String description = columnPresent(descriptionCol) ? text(window, descriptionCol) : null;
+        if (description != null && description.isEmpty()) description = null;
+
+        batchLines[batch.size()] = lineNumber;
+        batch.add(new Expense(userId, categoryId, Math.abs(cents) / 100.0, description, date)); // spending, stored positive
+    }
+
+    private boolean columnPresent(int col) {
+        return col >= 0 && col < fieldCount;
+    }
+
+    // Insert the pending batch and move the checkpoint to `offset`; false if the whole batch was refused
+    private boolean flush(long offset, long size, long modified) throws IOException {
+        if (!batch.isEmpty()) {
+            BatchResult result = ExpenseManager.addExpenses(batch, batch.size());
+            if (result.getSucceeded() == 0 && result.size() > 1) {
+                // most likely the database went away; stop so a rerun retries this batch
+                System.out.printf("❌ Batch ending at line %,d was rejected (%s). Rerun to resume from line %,d.%n",
+                        lineNumber, result.getError(0), batchLines[0]);
+                batch.clear();
+                return false;
+            }
+            for (int i = 0; i < result.size(); i++) {
+                if (!result.isSuccess(i)) fail(batchLines[i], result.getError(i));
+            }
+            imported += result.getSucceeded();
+            batch.clear();
+        }
+        new Checkpoint(size, modified, userId, offset, lineNumber, imported, failed, credits).save(checkpointFile);
+        printProgress(offset, size);
+        return true;
+    }
+
+    private void fail(long line, String error) {
+        failed++;
+        if (reportedErrors < MAX_REPORTED_ERRORS) {
+            reportedErrors++;
+            System.out.println("⚠️ Line " + line + ": " + error);
+        } else if (reportedErrors == MAX_REPORTED_ERRORS) {
+            reportedErrors++;
+            System.out.println("⚠️ Further row errors are counted but not printed");
+        }
+    }
+
+    // ---------------- PARSING ----------------
+
+    // Parse one record starting at pos. Returns the offset after its line break,
+    // or -1 if it runs past limit and more of the file follows (eof == false).
+    private int parseRecord(MappedByteBuffer buf, int pos, int limit, boolean eof) {
+        fieldCount = 0;
+        int i = pos;
+        while (true) {
+            int start, end;
+            boolean escaped = false;
+            if (i < limit && buf.get(i) == '"') {
+                start = ++i;
+                while (true) {
+                    if (i >= limit) {
+                        if (!eof) return -1;
+                        break; // unterminated quote at end of file: take what is there
+                    }
+                    if (buf.get(i) == '"') {
+                        if (i + 1 >= limit && !eof) return -1;
+                        if (i + 1 < limit && buf.get(i + 1) == '"') {
+                            escaped = true;
+                            i += 2;
+                            continue;
+                        }
+                        break;
+                    }
+                    i++;
+                }
+                end = i;
+                if (i < limit) i++; // closing quote
+                while (i < limit && buf.get(i) != ',' && buf.get(i) != '\n' && buf.get(i) != '\r') i++;
+            } else {
+                while (i < limit && buf.get(i) == ' ') i++;
+                start = i;
+                while (i < limit && buf.get(i) != ',' && buf.get(i) != '\n' && buf.get(i) != '\r') i++;
+                end = i;
+                while (end > start && buf.get(end - 1) == ' ') end--;
+            }
+            if (i >= limit && !eof) return -1;
+            addField(start, end, escaped);
+
+            if (i >= limit) return limit;
+            byte b = buf.get(i);
+            if (b == ',') {
+                i++;
+                continue;
+            }
+            if (b == '\r') {
+                if (i + 1 >= limit) return eof ? limit : -1;
+                return buf.get(i + 1) == '\n' ? i + 2 : i + 1;
+            }
+            return i + 1; // '\n'
+        }
+    }
+
+    private void addField(int start, int end, boolean escaped) {
+        if (fieldCount == fieldStart.length) {
+            fieldStart = Arrays.copyOf(fieldStart, fieldCount * 2);
+            fieldEnd = Arrays.copyOf(fieldEnd, fieldCount * 2);
+            fieldEscaped = Arrays.copyOf(fieldEscaped, fieldCount * 2);
+        }
+        fieldStart[fieldCount] = start;
+        fieldEnd[fieldCount] = end;
+        fieldEscaped[fieldCount] = escaped;
+        fieldCount++;
+    }
+
+    // Field as a String, with "" unescaped
+    String text(MappedByteBuffer buf, int field) {
+        return text(buf, fieldStart[field], fieldEnd[field], fieldEscaped[field]);
+    }
+
+    String text(MappedByteBuffer buf, int start, int end, boolean escaped) {
+        int length = end - start;
+        if (length > scratch.length) scratch = new byte[Math.max(length, scratch.length * 2)];
+        if (!escaped) {
+            buf.get(start, scratch, 0, length);
+            return new String(scratch, 0, length, StandardCharsets.UTF_8);
+        }
+        int n = 0;
+        for (int i = start; i < end; i++) {
+            byte b = buf.get(i);
+            scratch[n++] = b;
+            if (b == '"') i++; // skip the second quote of ""
+        }
+        return new String(scratch, 0, n, StandardCharsets.UTF_8);
+    }
+
+    // "1,234.50", "-12.5", "₹99" -> cents (half-up past two decimals); Long.MIN_VALUE if not a number
+    private static long parseCents(MappedByteBuffer buf, int start, int end) {
+        long cents = 0;
+        int decimals = -1;
+        boolean digits = false, negative = false;
+        for (int i = start; i < end; i++) {
+            byte b = buf.get(i);
+            if (b >= '0' && b <= '9') {
+                digits = true;
+                if (decimals < 0) {
+                    cents = cents * 10 + (b - '0');
+                } else if (decimals < 2) {
+                    cents = cents * 10 + (b - '0');
+                    decimals++;
+                } else if (decimals == 2) {
+                    if (b >= '5') cents++;
+                    decimals++;
+                }
+                if (cents > 100_000_000_000_000L) return Long.MIN_VALUE;
+            } else if (b == '.' && decimals < 0) {
+                decimals = 0;
+            } else if (b == '-' && !digits) {
+                negative = true;
+            } else if (b != ',' && b != '+' && b != ' ' && !(b < 0) && b != '$') {
+                return Long.MIN_VALUE; // bytes < 0 are the UTF-8 of a currency sign such as ₹ or €
+            }
+        }
+        if (!digits) return Long.MIN_VALUE;
+        int scale = decimals < 0 ? 0 : Math.min(decimals, 2);
+        for (int s = scale; s < 2; s++) cents *= 10;
+        return negative ? -cents : cents;
+    }
+
+    private long parseCents(MappedByteBuffer buf, int field) {
+        return parseCents(buf, fieldStart[field], fieldEnd[field]);
+    }
+
+    // yyyy-MM-dd or dd/MM/yyyy; null if neither
+    private LocalDate parseDate(MappedByteBuffer buf, int field) {
+        int start = fieldStart[field], end = fieldEnd[field];
+        int y, m, d;
+        if (end - start == 10 && buf.get(start + 4) == '-' && buf.get(start + 7) == '-') {
+            y = digits(buf, start, 4);
+            m = digits(buf, start + 5, 2);
+            d = digits(buf, start + 8, 2);
+        } else if (end - start == 10 && buf.get(start + 2) == '/' && buf.get(start + 5) == '/') {
+            d = digits(buf, start, 2);
+            m = digits(buf, start + 3, 2);
+            y = digits(buf, start + 6, 4);
+        } else {
+            return null;
+        }
+        if (y < 0 || m < 0 || d < 0) return null;
+
+        int key = y * 10_000 + m * 100 + d;
+        if (key == lastDateKey && lastDate != null) return lastDate;
+        try {
+            lastDate = LocalDate.of(y, m, d);
+            lastDateKey = key;
+            return lastDate;
+        } catch (DateTimeException e) {
+            return null;
+        }
+    }
+
+    private static int digits(MappedByteBuffer buf, int start, int count) {
+        int value = 0;
+        for (int i = start; i < start + count; i++) {
+            byte b = buf.get(i);
+            if (b < '0' || b > '9') return -1;
+            value = value * 10 + (b - '0');
+        }
+        return value;
+    }
+
+    // ---------------- CATEGORIES ----------------
+
+    // Category names as lower-cased bytes, compared against the field in place (there are only a handful)
+    private static final class CategoryTable {
+        private final List<byte[]> names = new ArrayList<>();
+        private final List<Integer> ids = new ArrayList<>();
+        private final boolean create;
+        private final int defaultId;
+
+        CategoryTable(boolean create, String defaultCategory) {
+            this.create = create;
+            for (Category c : CategoryManager.getCategories()) add(c.getCategoryName(), c.getCategoryId());
+            this.defaultId = defaultCategory == null ? 0 : lookupOrCreate(defaultCategory, create);
+            if (defaultCategory != null && defaultId == 0) {
+                throw new IllegalArgumentException("Unknown default category: " + defaultCategory);
+            }
+        }
+
+        int defaultId() {
+            return defaultId;
+        }
+
+        int resolve(MappedByteBuffer buf, int start, int end, CsvImporter importer) {
+            for (int n = 0; n < names.size(); n++) {
+                if (equalsIgnoreCase(names.get(n), buf, start, end)) return ids.get(n);
+            }
+            // First time we see this name: ask the registry (and maybe create it), then remember the answer
+            String name = importer.text(buf, start, end, false).trim();
+            int id = name.isEmpty() ? defaultId : lookupOrCreate(name, create);
+            if (id == 0) id = defaultId;
+            add(name, id);
+            return id;
+        }
+
+        private int lookupOrCreate(String name, boolean create) {
+            for (Category c : CategoryManager.getCategories()) {
+                if (c.getCategoryName().equalsIgnoreCase(name)) return c.getCategoryId();
+            }
+            int id = CategoryManager.getCategoryId(name);
+            if (id == 0 && create && CategoryManager.addCategory(name)) {
+                System.out.println("➕ Created category " + name);
+                id = CategoryManager.getCategoryId(name);
+            }
+            return id;
+        }
+
+        private void add(String name, int id) {
+            names.add(name.toLowerCase(Locale.ROOT).getBytes(StandardCharsets.UTF_8));
+            ids.add(id);
+        }
+
+        private static boolean equalsIgnoreCase(byte[] lower, MappedByteBuffer buf, int start, int end) {
+            if (end - start != lower.length) return false;
+            for (int i = 0; i < lower.length; i++) {
+                byte b = buf.get(start + i);
+                if (b >= 'A' && b <= 'Z') b += 32;
+                if (b != lower[i]) return false;
+            }
+            return true;
+        }
+    }
+
+    // ---------------- CHECKPOINT ----------------
+    // One line: size \t lastModified \t userId \t offset \t line \t imported \t failed \t credits
+
+    private record Checkpoint(long size, long modified, int userId, long offset, long line, long imported, long failed,
+                              long credits) {
+
+        boolean matches(long size, long modified, int userId) {
+            return this.size == size && this.modified == modified && this.userId == userId;
+        }
+
+        void save(Path file) throws IOException {
+            Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+            Files.writeString(tmp, size + "\t" + modified + "\t" + userId + "\t" + offset + "\t"
+                    + line + "\t" + imported + "\t" + failed + "\t" + credits + "\n", StandardCharsets.UTF_8);
+            Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        }
+
+        static Checkpoint load(Path file) {
+            if (!Files.exists(file)) return null;
+            try {
+                String[] f = Files.readString(file, StandardCharsets.UTF_8).trim().split("\t");
+                return new Checkpoint(Long.parseLong(f[0]), Long.parseLong(f[1]), Integer.parseInt(f[2]),
+                        Long.parseLong(f[3]), Long.parseLong(f[4]), Long.parseLong(f[5]), Long.parseLong(f[6]),
+                        f.length > 7 ? Long.parseLong(f[7]) : 0); // checkpoints from before credits were counted
+            } catch (IOException | RuntimeException e) {
+                System.out.println("⚠️ Could not read import checkpoint " + file + ": " + e.getMessage());
+                return null;
+            }
+        }
+    }
+}
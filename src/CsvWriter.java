@@ -0,0 +1,134 @@
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.LocalDate;
+
+/**
+ * Minimal streaming CSV encoder (RFC 4180), the CSV counterpart of JsonWriter.
+ *
+ * Encodes straight into a fixed byte buffer that is flushed to the
+ * underlying stream when full. Fields containing a comma, quote or line
+ * break are quoted with "" escapes; everything else is written as-is.
+ */
+public class CsvWriter {
+
+    private final byte[] buf;
+    private int pos;
+    private final OutputStream out;
+    private boolean firstField = true;
+
+    public CsvWriter(OutputStream out) {
+        this(out, 8192);
+    }
+
+    public CsvWriter(OutputStream out, int bufferSize) {
+        this.out = out;
+        this.buf = new byte[bufferSize];
+    }
+
+    public CsvWriter field(String value) throws IOException {
+        separator();
+        if (value == null || value.isEmpty()) return this;
+        boolean quote = false;
+        for (int i = 0; i < value.length() && !quote; i++) {
+            char c = value.charAt(i);
+            quote = c == ',' || c == '"' || c == '\n' || c == '\r';
+        }
+        if (quote) writeByte('"');
+        for (int i = 0, n = value.length(); i < n; i++) {
+            char c = value.charAt(i);
+            if (c < 0x80) {
+                if (c == '"') writeByte('"');
+                writeByte(c);
+            } else if (c < 0x800) {
+                writeByte(0xC0 | (c >> 6));
+                writeByte(0x80 | (c & 0x3F));
+            } else if (Character.isHighSurrogate(c) && i + 1 < n && Character.isLowSurrogate(value.charAt(i + 1))) {
+                int cp = Character.toCodePoint(c, value.charAt(++i));
+                writeByte(0xF0 | (cp >> 18));
+                writeByte(0x80 | ((cp >> 12) & 0x3F));
+                writeByte(0x80 | ((cp >> 6) & 0x3F));
+                writeByte(0x80 | (cp & 0x3F));
+            } else if (Character.isSurrogate(c)) {
+                writeByte('?'); // unpaired surrogate
+            } else {
+                writeByte(0xE0 | (c >> 12));
+                writeByte(0x80 | ((c >> 6) & 0x3F));
+                writeByte(0x80 | (c & 0x3F));
+            }
+        }
+        if (quote) writeByte('"');
+        return this;
+    }
+
+    // Always two decimals, like JsonWriter.valueMoney
+    public CsvWriter fieldMoney(double amount) throws IOException {
+        separator();
+        long cents = Math.round(amount * 100);
+        if (cents < 0) {
+            writeByte('-');
+            cents = -cents;
+        }
+        writeDigits(cents / 100);
+        writeByte('.');
+        int frac = (int) (cents % 100);
+        writeByte('0' + frac / 10);
+        writeByte('0' + frac % 10);
+        return this;
+    }
+
+    // yyyy-MM-dd
+    public CsvWriter field(LocalDate date) throws IOException {
+        separator();
+        if (date == null) return this;
+        writePadded(date.getYear(), 4);
+        writeByte('-');
+        writePadded(date.getMonthValue(), 2);
+        writeByte('-');
+        writePadded(date.getDayOfMonth(), 2);
+        return this;
+    }
+
+    public CsvWriter endRow() throws IOException {
+        writeByte('\r');
+        writeByte('\n');
+        firstField = true;
+        return this;
+    }
+
+    public void flush() throws IOException {
+        if (pos > 0) {
+            out.write(buf, 0, pos);
+            pos = 0;
+        }
+        out.flush();
+    }
+
+    // ---------------- INTERNALS ----------------
+
+    private void separator() throws IOException {
+        if (firstField) {
+            firstField = false;
+        } else {
+            writeByte(',');
+        }
+    }
+
+    private void writeDigits(long v) throws IOException {
+        if (v >= 10) writeDigits(v / 10);
+        writeByte('0' + (int) (v % 10));
+    }
+
+    private void writePadded(int v, int width) throws IOException {
+        for (int div = (int) Math.pow(10, width - 1); div > 0; div /= 10) {
+            writeByte('0' + (v / div) % 10);
+        }
+    }
+
+    private void writeByte(int b) throws IOException {
+        if (pos == buf.length) {
+            out.write(buf, 0, pos);
+            pos = 0;
+        }
+        buf[pos++] = (byte) b;
+    }
+}
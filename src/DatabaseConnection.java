@@ -1,22 +1,41 @@
 import java.sql.Connection;
-import java.sql.DriverManager;
 import java.sql.SQLException;
 
 public class DatabaseConnection {
-    // Change these according to your MySQL setup
-    private static final String URL = "jdbc:mysql://localhost:3306/expense_tracker";
-    private static final String USER = "root";
-    private static final String PASSWORD = "#maddy@1234";
+    // Change these according to your MySQL setup (or pass -Ddb.url=... -Ddb.user=... -Ddb.password=...)
+    // cachePrepStmts/useServerPrepStmts keep each pooled connection's prepared statements for reuse
+    private static final String URL = System.getProperty("db.url",
+            "jdbc:mysql://localhost:3306/expense_tracker?useCursorFetch=true&rewriteBatchedStatements=true"
+                    + "&useServerPrepStmts=true&cachePrepStmts=true&prepStmtCacheSize=250&prepStmtCacheSqlLimit=2048");
+    private static final String USER = System.getProperty("db.user", "root");
+    private static final String PASSWORD = System.getProperty("db.password", "#maddy@1234");
 
-    public static Connection connect() {
-        Connection conn = null;
-        try {
-            conn = DriverManager.getConnection(URL, USER, PASSWORD);
-            // Uncomment this line to confirm connection during testing
-            // System.out.println("✅ Connected to database successfully!");
-        } catch (SQLException e) {
-            System.out.println("❌ Database connection failed: " + e.getMessage());
-        }
-        return conn;
+    // Pool tuning (override with -Ddb.pool.maxSize=20 etc.)
+    private static final int POOL_MAX_SIZE = Integer.getInteger("db.pool.maxSize", 10);
+    private static final long POOL_BORROW_TIMEOUT_MS = Long.getLong("db.pool.borrowTimeoutMs", 5_000);
+    private static final long POOL_IDLE_TIMEOUT_MS = Long.getLong("db.pool.idleTimeoutMs", 300_000);
+    // Off by default: when set, every borrow records a stack trace so a leak report can say where it came from
+    private static final long POOL_LEAK_THRESHOLD_MS = Long.getLong("db.pool.leakThresholdMs", 0);
+
+    private static final ConnectionPool POOL = new ConnectionPool(URL, USER, PASSWORD,
+            POOL_MAX_SIZE, POOL_BORROW_TIMEOUT_MS, POOL_IDLE_TIMEOUT_MS, POOL_LEAK_THRESHOLD_MS);
+
+    // Borrow a pooled connection; closing it hands it back to the pool.
+    // Throws SQLException when none can be had (pool timeout, database down), never returns null.
+    public static Connection connect() throws SQLException {
+        long start = System.nanoTime();
+        Connection conn = POOL.borrow();
+        long waited = System.nanoTime() - start;
+        Metrics.DB_ACQUIRE.record(waited);
+        return SqlTrace.wrap(conn, waited);
+    }
+
+    public static ConnectionPool.Stats poolStats() {
+        return POOL.stats();
+    }
+
+    public static void shutdown() {
+        POOL.shutdown();
+        SqlTrace.shutdown();
     }
 }
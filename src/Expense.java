@@ -19,6 +19,14 @@ public class Expense {
         this.expenseDate = expenseDate;
     }
 
+    // Independent copy, for handing out rows that are also kept in a cache
+    public Expense copy() {
+        Expense copy = new Expense(userId, categoryId, amount, description, expenseDate);
+        copy.expenseId = expenseId;
+        copy.categoryName = categoryName;
+        return copy;
+    }
+
     // Getters and setters
     public int getExpenseId() { return expenseId; }
     public void setExpenseId(int expenseId) { this.expenseId = expenseId; }
@@ -0,0 +1,32 @@
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.Base64;
+
+/**
+ * Position in a user's expense list for keyset pagination.
+ *
+ * Pages are ordered by (expense_date DESC, expense_id DESC); the cursor holds
+ * the last row of the previous page and is sent to clients as an opaque token.
+ */
+public record ExpenseCursor(LocalDate expenseDate, int expenseId) {
+
+    public static ExpenseCursor after(Expense last) {
+        return new ExpenseCursor(last.getExpenseDate(), last.getExpenseId());
+    }
+
+    public String encode() {
+        String raw = expenseDate + ":" + expenseId;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    // Throws IllegalArgumentException if the token was not produced by encode()
+    public static ExpenseCursor decode(String token) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            int sep = raw.indexOf(':');
+            return new ExpenseCursor(LocalDate.parse(raw.substring(0, sep)), Integer.parseInt(raw.substring(sep + 1)));
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("Invalid cursor: " + token, e);
+        }
+    }
+}
@@ -0,0 +1,82 @@
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.LocalDate;
+
+/**
+ * Streams one user's expenses as CSV or NDJSON, for /export and the console export.
+ *
+ * Rows come off ExpenseManager.forEachExpenseInRange (a server-side cursor
+ * on MySQL) into a reused Expense and straight through a fixed-size writer
+ * buffer, so memory use is the same for ten rows or ten years of them.
+ * The CSV columns are the ones CsvImporter reads, so an export can be
+ * imported again as-is.
+ */
+public class ExpenseExport {
+
+    // Widest range both backends accept (MySQL DATE stops at 9999-12-31)
+    private static final LocalDate MIN_DATE = LocalDate.of(1000, 1, 1);
+    private static final LocalDate MAX_DATE = LocalDate.of(9999, 12, 31);
+
+    public enum Format {
+        CSV("text/csv; charset=utf-8", "csv"),
+        NDJSON("application/x-ndjson", "ndjson");
+
+        private final String contentType;
+        private final String extension;
+
+        Format(String contentType, String extension) {
+            this.contentType = contentType;
+            this.extension = extension;
+        }
+
+        public String contentType() { return contentType; }
+        public String extension() { return extension; }
+
+        // "csv" / "ndjson" (case-insensitive); null means csv
+        public static Format parse(String name) {
+            if (name == null || name.isEmpty() || name.equalsIgnoreCase("csv")) return CSV;
+            if (name.equalsIgnoreCase("ndjson") || name.equalsIgnoreCase("jsonl")) return NDJSON;
+            throw new IllegalArgumentException("Unknown export format: " + name + " (use csv or ndjson)");
+        }
+    }
+
+    // ✅ Write expenses dated from..to (both inclusive, null = open-ended), newest first.
+    // Returns the number of rows written, or -1 if storage failed part-way.
+    public static long write(int userId, LocalDate from, LocalDate to, Format format, OutputStream out) throws IOException {
+        LocalDate start = from == null ? MIN_DATE : from;
+        LocalDate end = to == null || !to.isBefore(MAX_DATE) ? MAX_DATE : to.plusDays(1); // repository range is [from, to)
+
+        int rows;
+        if (format == Format.CSV) {
+            CsvWriter csv = new CsvWriter(out);
+            csv.field("date").field("amount").field("category").field("description").endRow();
+            rows = ExpenseManager.forEachExpenseInRange(userId, start, end, e -> csv
+                    .field(e.getExpenseDate())
+                    .fieldMoney(e.getAmount())
+                    .field(e.getCategoryName())
+                    .field(e.getDescription())
+                    .endRow());
+            csv.flush();
+        } else {
+            JsonWriter json = new JsonWriter(out);
+            rows = ExpenseManager.forEachExpenseInRange(userId, start, end, e -> json.beginObject()
+                    .name("id").value(e.getExpenseId())
+                    .name("date").value(e.getExpenseDate())
+                    .name("amount").valueMoney(e.getAmount())
+                    .name("category").value(e.getCategoryName())
+                    .name("description").value(e.getDescription())
+                    .endObject()
+                    .endLine());
+            json.flush();
+        }
+        return rows;
+    }
+
+    // Download name, e.g. expenses-from-2024-01-01-to-2024-12-31.csv
+    public static String fileName(LocalDate from, LocalDate to, Format format) {
+        StringBuilder name = new StringBuilder("expenses");
+        if (from != null) name.append("-from-").append(from);
+        if (to != null) name.append("-to-").append(to);
+        return name.append('.').append(format.extension()).toString();
+    }
+}
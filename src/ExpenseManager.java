@@ -1,187 +1,475 @@
-import java.sql.*;
+import java.io.IOException;
+import java.sql.SQLException;
 import java.time.LocalDate;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
 
 public class ExpenseManager {
 
-    // ✅ Add a new expense
+    // Rows per insertBatch() call, i.e. per executeBatch() and transaction on the JDBC backend
+    private static final int DEFAULT_BATCH_SIZE = Integer.getInteger("expense.batchSize", 1_000);
+    private static final boolean ASYNC_INGEST = Boolean.getBoolean("expense.asyncIngest");
+    private static final SummaryCache SUMMARY_CACHE = new SummaryCache(
+            Integer.getInteger("summaryCache.maxEntries", 10_000),
+            Long.getLong("summaryCache.ttlMs", 300_000));
+
+    // Per-user change counter behind the HTTP ETags; the boot id keeps tags unique across restarts
+    private static final Map<Integer, AtomicLong> DATA_VERSIONS = new ConcurrentHashMap<>();
+    private static final String BOOT_ID = Long.toString(System.currentTimeMillis(), 36);
+
+    // Per-query timings, exported by /metrics as storage_query_seconds{query="..."}
+    private static final Metrics.Histogram Q_INSERT = Metrics.query("expense_insert");
+    private static final Metrics.Histogram Q_INSERT_BATCH = Metrics.query("expense_insert_batch");
+    private static final Metrics.Histogram Q_DELETE = Metrics.query("expense_delete");
+    private static final Metrics.Histogram Q_SCAN_USER = Metrics.query("expense_scan_user");
+    private static final Metrics.Histogram Q_SCAN_RANGE = Metrics.query("expense_scan_range");
+    private static final Metrics.Histogram Q_PAGE = Metrics.query("expense_page");
+    private static final Metrics.Histogram Q_RECENT = Metrics.query("expense_recent");
+    private static final Metrics.Histogram Q_BY_CATEGORY = Metrics.query("expense_totals_by_category");
+    private static final Metrics.Histogram Q_MONTHS_TOTAL = Metrics.query("expense_total_for_months");
+    private static final Metrics.Histogram Q_BY_MONTH = Metrics.query("expense_totals_by_month");
+    private static final Metrics.Histogram Q_RANGE_TOTAL = Metrics.query("expense_total_in_range");
+    private static final Metrics.Histogram Q_SEARCH = Metrics.query("expense_search");
+    private static final Metrics.Histogram Q_QUERY = Metrics.query("expense_query");
+    private static final Metrics.Histogram Q_COUNT = Metrics.query("expense_query_count");
+
+    // Storage backend picked by -Dstorage.backend (see Storage)
+    private static ExpenseRepository repository() {
+        return Storage.expenses();
+    }
+
+    // ✅ Add a new expense (row and aggregates together)
     public static boolean addExpense(Expense expense) {
-        String sql = "INSERT INTO expenses (user_id, category_id, amount, description, expense_date) VALUES (?, ?, ?, ?, ?)";
-        try (Connection conn = DatabaseConnection.connect();
-             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+        long start = System.nanoTime();
+        try {
+            boolean inserted = repository().insert(expense);
+            changed(expense.getUserId());
+            if (inserted) SearchIndex.added(expense);
+            return inserted;
+        } catch (SQLException e) {
+            System.out.println("❌ Error adding expense: " + e.getMessage());
+            return false;
+        } finally {
+            Q_INSERT.recordSince(start);
+        }
+    }
+
+    // ✅ Buffered insert: queued and group-committed by a background writer
+    public static CompletableFuture<Boolean> addExpenseAsync(Expense expense, ExpenseWriteQueue.Durability durability) {
+        return WriteQueueHolder.QUEUE.submit(expense, durability);
+    }
+
+    // Whether /addExpense should go through the write-behind queue (-Dexpense.asyncIngest=true)
+    public static boolean isAsyncIngestEnabled() {
+        return ASYNC_INGEST;
+    }
+
+    // Flush and stop the write-behind queue if it was ever started
+    public static void shutdownWriteQueue() {
+        if (writeQueueStarted) WriteQueueHolder.QUEUE.shutdown(10_000);
+    }
+
+    // Created on first use so plain synchronous callers never start the writer thread
+    private static volatile boolean writeQueueStarted;
+
+    private static final class WriteQueueHolder {
+        static final ExpenseWriteQueue QUEUE = new ExpenseWriteQueue(
+                Integer.getInteger("expense.writeQueue.capacity", 10_000),
+                Integer.getInteger("expense.writeQueue.maxBatch", 500),
+                Long.getLong("expense.writeQueue.windowMs", 20),
+                Long.getLong("expense.writeQueue.offerTimeoutMs", 100));
+        static {
+            writeQueueStarted = true;
+        }
+    }
 
-            pstmt.setInt(1, expense.getUserId());
-            pstmt.setInt(2, expense.getCategoryId());
-            pstmt.setDouble(3, expense.getAmount());
-            pstmt.setString(4, expense.getDescription());
-            pstmt.setDate(5, java.sql.Date.valueOf(expense.getExpenseDate()));
+    // ✅ Bulk insert: one insertBatch per chunk, per-item result
+    public static BatchResult addExpenses(Iterable<Expense> expenses) {
+        return addExpenses(expenses, DEFAULT_BATCH_SIZE);
+    }
 
-            return pstmt.executeUpdate() > 0;
+    public static BatchResult addExpenses(Iterable<Expense> expenses, int batchSize) {
+        BatchResult result = new BatchResult();
+        List<Expense> chunk = new ArrayList<>(batchSize);
+        int[] chunkIndexes = new int[batchSize];
+
+        for (Expense expense : expenses) {
+            int index = result.add();
+            String problem = validate(expense);
+            if (problem != null) {
+                result.fail(index, problem);
+                continue;
+            }
+            chunkIndexes[chunk.size()] = index;
+            chunk.add(expense);
+            if (chunk.size() == batchSize) {
+                flushChunk(chunk, chunkIndexes, result);
+            }
+        }
+        if (!chunk.isEmpty()) {
+            flushChunk(chunk, chunkIndexes, result);
+        }
+        return result;
+    }
 
+    private static void flushChunk(List<Expense> chunk, int[] chunkIndexes, BatchResult result) {
+        long start = System.nanoTime();
+        try {
+            String[] errors = repository().insertBatch(chunk);
+            for (int i = 0; i < errors.length; i++) {
+                if (errors[i] != null) {
+                    result.fail(chunkIndexes[i], errors[i]);
+                } else {
+                    SearchIndex.added(chunk.get(i));
+                }
+            }
         } catch (SQLException e) {
-            System.out.println("❌ Error adding expense: " + e.getMessage());
-            return false;
+            System.out.println("❌ Error adding expenses: " + e.getMessage());
+            // nothing in this chunk made it in
+            for (int i = 0; i < chunk.size(); i++) result.fail(chunkIndexes[i], e.getMessage());
+        } finally {
+            Q_INSERT_BATCH.recordSince(start);
         }
+        invalidateUsers(chunk);
+        chunk.clear();
+    }
+
+    private static void invalidateUsers(List<Expense> expenses) {
+        int lastUser = -1;
+        for (Expense expense : expenses) {
+            if (expense.getUserId() != lastUser) {
+                lastUser = expense.getUserId();
+                changed(lastUser);
+            }
+        }
+    }
+
+    // Every write path ends here: drop cached summaries and move the user's ETag on
+    private static void changed(int userId) {
+        SUMMARY_CACHE.invalidateUser(userId);
+        DATA_VERSIONS.computeIfAbsent(userId, id -> new AtomicLong()).incrementAndGet();
+    }
+
+    // ✅ Strong ETag for anything built from one user's expenses; changes on every add/delete
+    // made through this process (no storage access, so a matching If-None-Match costs nothing)
+    public static String getDataEtag(int userId) {
+        AtomicLong version = DATA_VERSIONS.get(userId);
+        return "\"u" + userId + "-" + (version == null ? 0 : version.get()) + "-" + BOOT_ID + "\"";
+    }
+
+    // Cheap checks so obviously bad rows never poison a whole batch
+    private static String validate(Expense expense) {
+        if (expense == null) return "Invalid expense";
+        if (expense.getUserId() <= 0) return "Invalid userId";
+        if (expense.getCategoryId() <= 0) return "Invalid categoryId";
+        if (!Double.isFinite(expense.getAmount())) return "Invalid amount";
+        if (expense.getExpenseDate() == null) return "Missing date";
+        if (expense.getDescription() != null && expense.getDescription().length() > 255) return "Description too long";
+        return null;
     }
 
     // ✅ Retrieve all expenses for a user
     public static List<Expense> getUserExpenses(int userId) {
         List<Expense> expenseList = new ArrayList<>();
-        String sql = """
-            SELECT e.*, c.category_name 
-            FROM expenses e 
-            JOIN categories c ON e.category_id = c.category_id 
-            WHERE e.user_id = ? 
-            ORDER BY e.expense_date DESC
-        """;
-
-        try (Connection conn = DatabaseConnection.connect();
-             PreparedStatement pstmt = conn.prepareStatement(sql)) {
-
-            pstmt.setInt(1, userId);
-            ResultSet rs = pstmt.executeQuery();
-
-            while (rs.next()) {
-                Expense exp = new Expense();
-                exp.setExpenseId(rs.getInt("expense_id"));
-                exp.setUserId(rs.getInt("user_id"));
-                exp.setCategoryId(rs.getInt("category_id"));
-                exp.setAmount(rs.getDouble("amount"));
-                exp.setDescription(rs.getString("description"));
-                exp.setExpenseDate(rs.getDate("expense_date").toLocalDate());
-                exp.setCategoryName(rs.getString("category_name"));
-                expenseList.add(exp);
-            }
-
+        long start = System.nanoTime();
+        try {
+            repository().forEachUserExpense(userId, false, expenseList::add);
         } catch (SQLException e) {
             System.out.println("❌ Error retrieving expenses: " + e.getMessage());
+        } catch (IOException e) {
+            // cannot happen, ArrayList::add does no I/O
+        } finally {
+            Q_SCAN_USER.recordSince(start);
         }
-
         return expenseList;
     }
 
+    // ✅ Stream all expenses for a user without building a list.
+    // The same Expense object is reused for every row. Returns the row count, or -1 on a storage error.
+    public static int forEachUserExpense(int userId, ExpenseVisitor visitor) throws IOException {
+        long start = System.nanoTime();
+        try {
+            return repository().forEachUserExpense(userId, true, visitor);
+        } catch (SQLException e) {
+            System.out.println("❌ Error retrieving expenses: " + e.getMessage());
+            return -1;
+        } finally {
+            Q_SCAN_USER.recordSince(start); // includes the visitor, e.g. writing the response
+        }
+    }
+
+    // ---------------- CACHED SUMMARIES ----------------
+    // Dashboard summaries go through SUMMARY_CACHE; every write path calls invalidateUser().
+
     // ✅ Get total spent by category
     public static Map<String, Double> getExpensesByCategory(int userId) {
-        Map<String, Double> categoryTotals = new LinkedHashMap<>();
-        String sql = """
-            SELECT c.category_name, SUM(e.amount) AS total 
-            FROM expenses e 
-            JOIN categories c ON e.category_id = c.category_id 
-            WHERE e.user_id = ? 
-            GROUP BY c.category_name
-        """;
-
-        try (Connection conn = DatabaseConnection.connect();
-             PreparedStatement pstmt = conn.prepareStatement(sql)) {
-
-            pstmt.setInt(1, userId);
-            ResultSet rs = pstmt.executeQuery();
-
-            while (rs.next()) {
-                categoryTotals.put(rs.getString("category_name"), rs.getDouble("total"));
-            }
-
+        try {
+            return SUMMARY_CACHE.get(new SummaryCache.Key(userId, "byCategory", 0, 0),
+                    () -> Collections.unmodifiableMap(loadExpensesByCategory(userId)));
         } catch (SQLException e) {
             System.out.println("❌ Error retrieving category totals: " + e.getMessage());
+            return new LinkedHashMap<>();
         }
+    }
 
+    private static Map<String, Double> loadExpensesByCategory(int userId) throws SQLException {
+        Map<String, Double> categoryTotals = new LinkedHashMap<>();
+        long start = System.nanoTime();
+        try {
+            repository().totalsByCategory(userId).forEach((categoryId, total) ->
+                    categoryTotals.merge(CategoryManager.getCategoryName(categoryId), total, Double::sum));
+        } finally {
+            Q_BY_CATEGORY.recordSince(start);
+        }
         return categoryTotals;
     }
 
     // ✅ Get total expenses by month (used for bar chart)
     public static double getTotalExpensesByMonth(int userId, int year, int month) {
-        String sql = "SELECT SUM(amount) AS total FROM expenses WHERE user_id = ? AND YEAR(expense_date) = ? AND MONTH(expense_date) = ?";
-        try (Connection conn = DatabaseConnection.connect();
-             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+        int ym = ExpenseRollup.monthKey(year, month);
+        try {
+            return SUMMARY_CACHE.get(new SummaryCache.Key(userId, "month", ym, 0),
+                    () -> loadTotalForMonths(userId, ym, ym));
+        } catch (SQLException e) {
+            System.out.println("⚠️ Error retrieving monthly total: " + e.getMessage());
+            return 0.0;
+        }
+    }
 
-            pstmt.setInt(1, userId);
-            pstmt.setInt(2, year);
-            pstmt.setInt(3, month);
+    private static double loadTotalForMonths(int userId, int fromYm, int toYm) throws SQLException {
+        long start = System.nanoTime();
+        try {
+            return repository().totalForMonths(userId, fromYm, toYm);
+        } finally {
+            Q_MONTHS_TOTAL.recordSince(start);
+        }
+    }
 
-            ResultSet rs = pstmt.executeQuery();
-            if (rs.next()) {
-                return rs.getDouble("total");
-            }
+    // ✅ All 12 monthly totals for a year in one query (index 0 = January)
+    public static double[] getMonthlyTotals(int userId, int year) {
+        try {
+            return getMonthlyTotals(userId, year, year).get(year);
+        } catch (SQLException e) {
+            return new double[12]; // already logged; the chart shows an empty year
+        }
+    }
 
+    // ✅ Monthly totals for every year in [fromYear, toYear], one grouped query for the whole span
+    public static Map<Integer, double[]> getMonthlyTotals(int userId, int fromYear, int toYear) throws SQLException {
+        Map<Integer, double[]> cached;
+        try {
+            cached = SUMMARY_CACHE.get(new SummaryCache.Key(userId, "monthly", fromYear, toYear),
+                    () -> loadMonthlyTotals(userId, fromYear, toYear));
         } catch (SQLException e) {
-            System.out.println("⚠️ Error retrieving monthly total: " + e.getMessage());
+            System.out.println("⚠️ Error retrieving monthly totals: " + e.getMessage());
+            throw e;
+        }
+        // arrays are mutable, so hand out copies of the cached ones
+        Map<Integer, double[]> totals = new LinkedHashMap<>();
+        cached.forEach((year, months) -> totals.put(year, months.clone()));
+        return totals;
+    }
+
+    private static Map<Integer, double[]> loadMonthlyTotals(int userId, int fromYear, int toYear) throws SQLException {
+        Map<Integer, double[]> totals = emptyMonthlyTotals(fromYear, toYear);
+        long start = System.nanoTime();
+        try {
+            repository().totalsByMonth(userId, ExpenseRollup.monthKey(fromYear, 1), ExpenseRollup.monthKey(toYear, 12))
+                    .forEach((ym, total) -> totals.get(ym / 100)[ym % 100 - 1] = total);
+        } finally {
+            Q_BY_MONTH.recordSince(start);
         }
-        return 0.0;
+        return totals;
+    }
+
+    private static Map<Integer, double[]> emptyMonthlyTotals(int fromYear, int toYear) {
+        Map<Integer, double[]> totals = new LinkedHashMap<>();
+        for (int y = fromYear; y <= toYear; y++) {
+            totals.put(y, new double[12]);
+        }
+        return totals;
     }
 
     // ✅ Get total expenses for an entire year
     public static double getTotalExpensesByYear(int userId, int year) {
-        String sql = "SELECT SUM(amount) AS total FROM expenses WHERE user_id = ? AND YEAR(expense_date) = ?";
-        try (Connection conn = DatabaseConnection.connect();
-             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+        int fromYm = ExpenseRollup.monthKey(year, 1);
+        int toYm = ExpenseRollup.monthKey(year, 12);
+        try {
+            return SUMMARY_CACHE.get(new SummaryCache.Key(userId, "year", year, 0),
+                    () -> loadTotalForMonths(userId, fromYm, toYm));
+        } catch (SQLException e) {
+            System.out.println("⚠️ Error retrieving yearly total: " + e.getMessage());
+            return 0.0;
+        }
+    }
+
+    // ✅ Optional: Get recent N expenses (for dashboard preview)
+    public static List<Expense> getRecentExpenses(int userId, int limit) {
+        List<Expense> cached;
+        try {
+            cached = SUMMARY_CACHE.get(new SummaryCache.Key(userId, "recent", limit, 0),
+                    () -> loadRecentExpenses(userId, limit));
+        } catch (SQLException e) {
+            System.out.println("⚠️ Error fetching recent expenses: " + e.getMessage());
+            return new ArrayList<>();
+        }
+        // Expense is mutable, so hand out copies of the cached rows
+        List<Expense> recent = new ArrayList<>(cached.size());
+        for (Expense expense : cached) {
+            recent.add(expense.copy());
+        }
+        return recent;
+    }
 
-            pstmt.setInt(1, userId);
-            pstmt.setInt(2, year);
+    private static List<Expense> loadRecentExpenses(int userId, int limit) throws SQLException {
+        long start = System.nanoTime();
+        try {
+            return repository().recent(userId, limit);
+        } finally {
+            Q_RECENT.recordSince(start);
+        }
+    }
 
-            ResultSet rs = pstmt.executeQuery();
-            if (rs.next()) {
-                return rs.getDouble("total");
-            }
+    public static SummaryCache.Stats summaryCacheStats() {
+        return SUMMARY_CACHE.stats();
+    }
 
+    // ---------------- DATE RANGE QUERIES ----------------
+    // All ranges are half-open [from, to) on expense_date.
+
+    // ✅ Sum of expenses with from <= expense_date < to
+    public static double getTotalInRange(int userId, LocalDate from, LocalDate to) {
+        long start = System.nanoTime();
+        try {
+            return repository().totalInRange(userId, 0, from, to);
         } catch (SQLException e) {
-            System.out.println("⚠️ Error retrieving yearly total: " + e.getMessage());
+            System.out.println("⚠️ Error retrieving range total: " + e.getMessage());
+            return 0.0;
+        } finally {
+            Q_RANGE_TOTAL.recordSince(start);
         }
-        return 0.0;
     }
 
-    // ✅ Delete expense by ID (with ownership check)
-    public static boolean deleteExpense(int expenseId, int userId) {
-        String sql = "DELETE FROM expenses WHERE expense_id = ? AND user_id = ?";
-        try (Connection conn = DatabaseConnection.connect();
-             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+    // ✅ Sum for one category with from <= expense_date < to
+    public static double getCategoryTotalInRange(int userId, int categoryId, LocalDate from, LocalDate to) {
+        long start = System.nanoTime();
+        try {
+            return repository().totalInRange(userId, categoryId, from, to);
+        } catch (SQLException e) {
+            System.out.println("⚠️ Error retrieving category range total: " + e.getMessage());
+            return 0.0;
+        } finally {
+            Q_RANGE_TOTAL.recordSince(start);
+        }
+    }
 
-            pstmt.setInt(1, expenseId);
-            pstmt.setInt(2, userId);
+    // ✅ Expenses with from <= expense_date < to, newest first
+    public static List<Expense> getExpensesInRange(int userId, LocalDate from, LocalDate to) {
+        List<Expense> expenseList = new ArrayList<>();
+        long start = System.nanoTime();
+        try {
+            repository().forEachExpenseInRange(userId, from, to, false, expenseList::add);
+        } catch (SQLException e) {
+            System.out.println("❌ Error retrieving expenses in range: " + e.getMessage());
+        } catch (IOException e) {
+            // cannot happen, ArrayList::add does no I/O
+        } finally {
+            Q_SCAN_RANGE.recordSince(start);
+        }
+        return expenseList;
+    }
 
-            int rows = pstmt.executeUpdate();
-            return rows > 0;
+    // ✅ Streaming variant of getExpensesInRange; reuses one Expense. Returns row count or -1 on a storage error.
+    public static int forEachExpenseInRange(int userId, LocalDate from, LocalDate to, ExpenseVisitor visitor) throws IOException {
+        long start = System.nanoTime();
+        try {
+            return repository().forEachExpenseInRange(userId, from, to, true, visitor);
+        } catch (SQLException e) {
+            System.out.println("❌ Error retrieving expenses in range: " + e.getMessage());
+            return -1;
+        } finally {
+            Q_SCAN_RANGE.recordSince(start);
+        }
+    }
 
+    // ✅ Delete expense by ID (with ownership check)
+    public static boolean deleteExpense(int expenseId, int userId) {
+        long start = System.nanoTime();
+        try {
+            boolean deleted = repository().delete(expenseId, userId);
+            if (deleted) {
+                changed(userId);
+                SearchIndex.removed(expenseId, userId);
+            }
+            return deleted;
         } catch (SQLException e) {
             System.out.println("❌ Error deleting expense: " + e.getMessage());
             return false;
+        } finally {
+            Q_DELETE.recordSince(start);
         }
     }
 
-    // ✅ Optional: Get recent N expenses (for dashboard preview)
-    public static List<Expense> getRecentExpenses(int userId, int limit) {
-        List<Expense> expenseList = new ArrayList<>();
-        String sql = """
-            SELECT e.*, c.category_name 
-            FROM expenses e 
-            JOIN categories c ON e.category_id = c.category_id 
-            WHERE e.user_id = ? 
-            ORDER BY e.expense_date DESC 
-            LIMIT ?
-        """;
-
-        try (Connection conn = DatabaseConnection.connect();
-             PreparedStatement pstmt = conn.prepareStatement(sql)) {
-
-            pstmt.setInt(1, userId);
-            pstmt.setInt(2, limit);
-            ResultSet rs = pstmt.executeQuery();
-
-            while (rs.next()) {
-                Expense exp = new Expense();
-                exp.setExpenseId(rs.getInt("expense_id"));
-                exp.setUserId(rs.getInt("user_id"));
-                exp.setCategoryId(rs.getInt("category_id"));
-                exp.setAmount(rs.getDouble("amount"));
-                exp.setDescription(rs.getString("description"));
-                exp.setExpenseDate(rs.getDate("expense_date").toLocalDate());
-                exp.setCategoryName(rs.getString("category_name"));
-                expenseList.add(exp);
-            }
+    // ✅ Rows matching an ExpenseQuery (filters, sort, offset/limit all applied by storage)
+    public static List<Expense> queryExpenses(ExpenseQuery query) throws SQLException {
+        long start = System.nanoTime();
+        try {
+            return repository().query(query);
+        } catch (SQLException e) {
+            System.out.println("❌ Error querying expenses: " + e.getMessage());
+            throw e;
+        } finally {
+            Q_QUERY.recordSince(start);
+        }
+    }
 
+    // ✅ How many rows an ExpenseQuery matches in total, or -1 on a storage error
+    public static int countExpenses(ExpenseQuery query) {
+        long start = System.nanoTime();
+        try {
+            return repository().count(query);
         } catch (SQLException e) {
-            System.out.println("⚠️ Error fetching recent expenses: " + e.getMessage());
+            System.out.println("❌ Error counting expenses: " + e.getMessage());
+            return -1;
+        } finally {
+            Q_COUNT.recordSince(start);
         }
+    }
 
-        return expenseList;
+    // ✅ Full-text search over descriptions: best `limit` matches for every word of query (prefixes allowed)
+    public static SearchIndex.Result searchExpenses(int userId, String query, int limit) throws SQLException {
+        long start = System.nanoTime();
+        try {
+            return SearchIndex.search(userId, query, limit);
+        } catch (SQLException e) {
+            System.out.println("❌ Error searching expenses: " + e.getMessage());
+            throw e;
+        } finally {
+            Q_SEARCH.recordSince(start);
+        }
+    }
+
+    // ✅ Keyset pagination: the page after `cursor` (null = first page), newest first.
+    // A storage error is thrown, not turned into an empty last page the client would stop at.
+    public static ExpensePage getExpensePage(int userId, ExpenseCursor cursor, int limit) throws SQLException {
+        List<Expense> expenseList;
+        long start = System.nanoTime();
+        try {
+            // one extra row tells us whether another page exists
+            expenseList = new ArrayList<>(repository().page(userId, cursor, limit + 1));
+        } catch (SQLException e) {
+            System.out.println("⚠️ Error fetching expense page: " + e.getMessage());
+            throw e;
+        } finally {
+            Q_PAGE.recordSince(start);
+        }
+
+        if (expenseList.size() > limit) {
+            expenseList.remove(limit);
+            return new ExpensePage(expenseList, ExpenseCursor.after(expenseList.get(limit - 1)).encode());
+        }
+        return new ExpensePage(expenseList, null);
     }
 }
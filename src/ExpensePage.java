@@ -0,0 +1,11 @@
+import java.util.List;
+
+/**
+ * One page of expenses plus the cursor for the next page (null on the last page).
+ */
+public record ExpensePage(List<Expense> items, String nextCursor) {
+
+    public boolean hasMore() {
+        return nextCursor != null;
+    }
+}
@@ -0,0 +1,194 @@
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.Comparator;
+
+/**
+ * One user's expenses filtered by category, date and amount, sorted and
+ * windowed (offset/limit). Built with {@link #forUser(int)}:
+ *
+ *   ExpenseQuery.forUser(userId).categories(1, 4).between(jan1, feb1)
+ *       .minAmount(10).sortBy(ExpenseQuery.Sort.AMOUNT, true).limit(50).build()
+ *
+ * Dates are half-open [from, to) like the rest of ExpenseManager; amounts
+ * are inclusive and kept in cents so both backends compare them exactly.
+ * Unset bounds are open. Every sort ends on expense_id in the same
+ * direction, so offset pages never overlap or skip rows.
+ */
+public final class ExpenseQuery {
+
+    public static final int DEFAULT_LIMIT = 100;
+
+    public enum Sort {
+        DATE(Comparator.comparing(Expense::getExpenseDate)),
+        AMOUNT(Comparator.comparingDouble(Expense::getAmount)),
+        // case-insensitive, close to MySQL's default collation
+        CATEGORY(Comparator.comparing(Expense::getCategoryName, Comparator.nullsFirst(String.CASE_INSENSITIVE_ORDER))),
+        DESCRIPTION(Comparator.comparing(Expense::getDescription, Comparator.nullsFirst(String.CASE_INSENSITIVE_ORDER)));
+
+        private final Comparator<Expense> order;
+
+        Sort(Comparator<Expense> order) {
+            this.order = order;
+        }
+
+        // "date" / "amount" / "category" / "description" (case-insensitive)
+        public static Sort parse(String name) {
+            for (Sort sort : values()) {
+                if (sort.name().equalsIgnoreCase(name)) return sort;
+            }
+            throw new IllegalArgumentException("Unknown sort: " + name + " (use date, amount, category or description)");
+        }
+    }
+
+    private final int userId;
+    private final int[] categoryIds; // sorted, distinct; empty = every category
+    private final LocalDate from;    // null = open
+    private final LocalDate to;      // exclusive, null = open
+    private final long minCents;     // Long.MIN_VALUE = open
+    private final long maxCents;     // Long.MAX_VALUE = open
+    private final Sort sort;
+    private final boolean descending;
+    private final int offset;
+    private final int limit;
+
+    private ExpenseQuery(Builder b) {
+        this.userId = b.userId;
+        this.categoryIds = b.categoryIds;
+        this.from = b.from;
+        this.to = b.to;
+        this.minCents = b.minCents;
+        this.maxCents = b.maxCents;
+        this.sort = b.sort;
+        this.descending = b.descending;
+        this.offset = b.offset;
+        this.limit = b.limit;
+    }
+
+    public static Builder forUser(int userId) {
+        return new Builder(userId);
+    }
+
+    public int userId() { return userId; }
+    public int categoryCount() { return categoryIds.length; }
+    public int categoryId(int i) { return categoryIds[i]; }
+    public LocalDate from() { return from; }
+    public LocalDate to() { return to; }
+    public long minCents() { return minCents; }
+    public long maxCents() { return maxCents; }
+    public Sort sort() { return sort; }
+    public boolean descending() { return descending; }
+    public int offset() { return offset; }
+    public int limit() { return limit; }
+
+    // Same filters and sort, a different window (used to page through one result set)
+    public ExpenseQuery window(int offset, int limit) {
+        return toBuilder().offset(offset).limit(limit).build();
+    }
+
+    public Builder toBuilder() {
+        Builder b = new Builder(userId);
+        b.categoryIds = categoryIds;
+        b.from = from;
+        b.to = to;
+        b.minCents = minCents;
+        b.maxCents = maxCents;
+        b.sort = sort;
+        b.descending = descending;
+        b.offset = offset;
+        b.limit = limit;
+        return b;
+    }
+
+    // ✅ Whether a row passes the filters (for backends that filter in Java)
+    public boolean matches(int rowCategoryId, long rowCents, LocalDate rowDate) {
+        if (categoryIds.length > 0 && Arrays.binarySearch(categoryIds, rowCategoryId) < 0) return false;
+        if (from != null && rowDate.isBefore(from)) return false;
+        if (to != null && !rowDate.isBefore(to)) return false;
+        return rowCents >= minCents && rowCents <= maxCents;
+    }
+
+    // Result order: the sort column, then expense_id, both in the query's direction
+    public Comparator<Expense> order() {
+        Comparator<Expense> order = sort.order.thenComparingInt(Expense::getExpenseId);
+        return descending ? order.reversed() : order;
+    }
+
+    public static final class Builder {
+        private final int userId;
+        private int[] categoryIds = new int[0];
+        private LocalDate from;
+        private LocalDate to;
+        private long minCents = Long.MIN_VALUE;
+        private long maxCents = Long.MAX_VALUE;
+        private Sort sort = Sort.DATE;
+        private boolean descending = true; // newest first, like every other list
+        private int offset;
+        private int limit = DEFAULT_LIMIT;
+
+        private Builder(int userId) {
+            this.userId = userId;
+        }
+
+        // Only these categories (none = all)
+        public Builder categories(int... ids) {
+            this.categoryIds = Arrays.stream(ids).distinct().sorted().toArray();
+            return this;
+        }
+
+        // from <= expense_date < to; either may be null
+        public Builder between(LocalDate from, LocalDate to) {
+            this.from = from;
+            this.to = to;
+            return this;
+        }
+
+        public Builder minAmount(double amount) {
+            this.minCents = toCents(amount, RoundingMode.CEILING);
+            return this;
+        }
+
+        public Builder maxAmount(double amount) {
+            this.maxCents = toCents(amount, RoundingMode.FLOOR);
+            return this;
+        }
+
+        public Builder sortBy(Sort sort, boolean descending) {
+            this.sort = sort;
+            this.descending = descending;
+            return this;
+        }
+
+        public Builder offset(int offset) {
+            this.offset = offset;
+            return this;
+        }
+
+        public Builder limit(int limit) {
+            this.limit = limit;
+            return this;
+        }
+
+        // Throws IllegalArgumentException for ranges or windows that can never make sense
+        public ExpenseQuery build() {
+            if (userId <= 0) throw new IllegalArgumentException("Invalid userId");
+            if (sort == null) throw new IllegalArgumentException("Missing sort");
+            if (offset < 0) throw new IllegalArgumentException("offset must be >= 0");
+            if (limit <= 0) throw new IllegalArgumentException("limit must be > 0");
+            if (from != null && to != null && to.isBefore(from)) throw new IllegalArgumentException("to is before from");
+            if (minCents > maxCents) throw new IllegalArgumentException("minAmount is above maxAmount");
+            return new ExpenseQuery(this);
+        }
+
+        // Bounds rounded inwards to whole cents, so a min of 9.995 means "at least 10.00"
+        private static long toCents(double amount, RoundingMode mode) {
+            if (!Double.isFinite(amount)) throw new IllegalArgumentException("Invalid amount: " + amount);
+            try {
+                return BigDecimal.valueOf(amount).setScale(2, mode).movePointRight(2).longValueExact();
+            } catch (ArithmeticException e) {
+                throw new IllegalArgumentException("Amount out of range: " + amount);
+            }
+        }
+    }
+}
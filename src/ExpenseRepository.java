@@ -0,0 +1,58 @@
+import java.io.IOException;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Storage for expenses, behind ExpenseManager.
+ *
+ * ExpenseManager keeps validation, the summary cache and paging on top; an
+ * implementation only stores rows and answers the raw queries. Every backend
+ * reports failures as SQLException so callers handle a single error type.
+ * Scans visit rows newest first (expense_date, then expense_id, descending).
+ */
+public interface ExpenseRepository {
+
+    // Insert one expense together with whatever aggregates the backend keeps; sets its generated expenseId
+    boolean insert(Expense expense) throws SQLException;
+
+    // Insert rows as one unit where possible; returns one error per row (null = stored, expenseId set)
+    String[] insertBatch(List<Expense> rows) throws SQLException;
+
+    // Delete if it belongs to userId; false when there was no such expense
+    boolean delete(int expenseId, int userId) throws SQLException;
+
+    // Visit every expense of every user, in no particular order (reused Expense); used to build in-memory indexes
+    int forEachExpense(ExpenseVisitor visitor) throws SQLException, IOException;
+
+    // Visit every expense of a user; with reuseRow the same Expense is passed each time. Returns the row count.
+    int forEachUserExpense(int userId, boolean reuseRow, ExpenseVisitor visitor) throws SQLException, IOException;
+
+    // Same as forEachUserExpense for from <= expense_date < to
+    int forEachExpenseInRange(int userId, LocalDate from, LocalDate to, boolean reuseRow,
+                              ExpenseVisitor visitor) throws SQLException, IOException;
+
+    // Up to limit expenses strictly after cursor (null = from the newest)
+    List<Expense> page(int userId, ExpenseCursor cursor, int limit) throws SQLException;
+
+    List<Expense> recent(int userId, int limit) throws SQLException;
+
+    // Rows matching query's filters, in its sort order, limited to its offset/limit window
+    List<Expense> query(ExpenseQuery query) throws SQLException;
+
+    // How many rows match query's filters (sort and window ignored)
+    int count(ExpenseQuery query) throws SQLException;
+
+    // category_id -> total for a user
+    Map<Integer, Double> totalsByCategory(int userId) throws SQLException;
+
+    // Sum for months fromYm..toYm inclusive (yyyymm)
+    double totalForMonths(int userId, int fromYm, int toYm) throws SQLException;
+
+    // yyyymm -> total for the months in fromYm..toYm that have expenses
+    Map<Integer, Double> totalsByMonth(int userId, int fromYm, int toYm) throws SQLException;
+
+    // Sums with from <= expense_date < to; categoryId 0 means every category
+    double totalInRange(int userId, int categoryId, LocalDate from, LocalDate to) throws SQLException;
+}
@@ -0,0 +1,185 @@
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.sql.*;
+import java.time.LocalDate;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Pre-aggregated (user, category, month) -> (total, count) table kept in step with expenses.
+ *
+ * ExpenseManager applies a Deltas in the same transaction as every insert and
+ * delete, so dashboard totals read a handful of rollup rows instead of
+ * re-summing the raw expenses. Run this class to check for or repair drift:
+ *
+ *   java ExpenseRollup check [userId]
+ *   java ExpenseRollup rebuild [userId]
+ */
+public class ExpenseRollup {
+
+    private static final String UPSERT_SQL = """
+        INSERT INTO expense_rollup (user_id, category_id, ym, total, expense_count) VALUES (?, ?, ?, ?, ?)
+        ON DUPLICATE KEY UPDATE total = total + ?, expense_count = expense_count + ?
+    """;
+
+    private static final String MONTH_KEY_SQL = "YEAR(expense_date) * 100 + MONTH(expense_date)";
+
+    // yyyymm, e.g. 202503 for March 2025
+    public static int monthKey(LocalDate date) {
+        return date.getYear() * 100 + date.getMonthValue();
+    }
+
+    public static int monthKey(int year, int month) {
+        return year * 100 + month;
+    }
+
+    // Amount -> whole cents, rounded half-up on the decimal value the way MySQL stores it in
+    // DECIMAL(10,2): 1.005 is 101, where Math.round(1.005 * 100) gives 100 (1.005 * 100 = 100.49999...).
+    // Every writer (the expenses row and the rollup delta alike) must go through here.
+    public static long toCents(double amount) {
+        long cents = Math.round(amount * 100);
+        if (cents / 100.0 == amount) return cents; // at most two decimals: the common, allocation-free case
+        return BigDecimal.valueOf(amount).setScale(2, RoundingMode.HALF_UP).movePointRight(2).longValue();
+    }
+
+    // Net changes for one transaction, merged per rollup row
+    static final class Deltas {
+        private record Key(int userId, int categoryId, int ym) {}
+
+        // Primary key order (user_id, ym, category_id)
+        private static final Comparator<Key> KEY_ORDER = Comparator.comparingInt(Key::userId)
+                .thenComparingInt(Key::ym).thenComparingInt(Key::categoryId);
+
+        // {cents, count}. Sorted, so every transaction locks rollup rows in the same order and two
+        // overlapping batches wait on each other instead of deadlocking.
+        private final Map<Key, long[]> changes = new TreeMap<>(KEY_ORDER);
+
+        void add(Expense expense) {
+            add(expense.getUserId(), expense.getCategoryId(), expense.getExpenseDate(), toCents(expense.getAmount()), 1);
+        }
+
+        void add(int userId, int categoryId, LocalDate date, long cents, int count) {
+            long[] change = changes.computeIfAbsent(new Key(userId, categoryId, monthKey(date)), k -> new long[2]);
+            change[0] += cents;
+            change[1] += count;
+        }
+
+        // Must run inside the caller's transaction
+        void apply(Connection conn) throws SQLException {
+            if (changes.isEmpty()) return;
+            try (PreparedStatement pstmt = conn.prepareStatement(UPSERT_SQL)) {
+                for (Map.Entry<Key, long[]> e : changes.entrySet()) {
+                    BigDecimal total = BigDecimal.valueOf(e.getValue()[0], 2);
+                    int count = (int) e.getValue()[1];
+                    pstmt.setInt(1, e.getKey().userId());
+                    pstmt.setInt(2, e.getKey().categoryId());
+                    pstmt.setInt(3, e.getKey().ym());
+                    pstmt.setBigDecimal(4, total);
+                    pstmt.setInt(5, count);
+                    pstmt.setBigDecimal(6, total);
+                    pstmt.setInt(7, count);
+                    pstmt.addBatch();
+                }
+                pstmt.executeBatch();
+            }
+            changes.clear();
+        }
+    }
+
+    // ✅ Recompute the rollup from raw expenses (all users when userId is null)
+    public static boolean rebuild(Integer userId) {
+        String where = userId == null ? "" : " WHERE user_id = ?";
+        String insert = "INSERT INTO expense_rollup (user_id, category_id, ym, total, expense_count) "
+                + "SELECT user_id, category_id, " + MONTH_KEY_SQL + ", SUM(amount), COUNT(*) FROM expenses" + where
+                + " GROUP BY user_id, category_id, " + MONTH_KEY_SQL;
+
+        try (Connection conn = DatabaseConnection.connect();
+             PreparedStatement delete = conn.prepareStatement("DELETE FROM expense_rollup" + where);
+             PreparedStatement fill = conn.prepareStatement(insert)) {
+
+            conn.setAutoCommit(false);
+            if (userId != null) {
+                delete.setInt(1, userId);
+                fill.setInt(1, userId);
+            }
+            delete.executeUpdate();
+            int rows = fill.executeUpdate();
+            conn.commit();
+            System.out.println("✅ Rollup rebuilt: " + rows + " row(s)");
+            return true;
+
+        } catch (SQLException e) {
+            System.out.println("❌ Rollup rebuild failed: " + e.getMessage());
+            return false;
+        }
+    }
+
+    // ✅ Count rollup rows that disagree with the raw expenses; -1 on error
+    public static int check(Integer userId) {
+        String where = userId == null ? "" : " WHERE user_id = ?";
+        String actualSql = "SELECT user_id, category_id, " + MONTH_KEY_SQL + " AS ym, SUM(amount) AS total, COUNT(*) AS cnt"
+                + " FROM expenses" + where + " GROUP BY user_id, category_id, " + MONTH_KEY_SQL;
+        String rollupSql = "SELECT user_id, category_id, ym, total, expense_count AS cnt FROM expense_rollup" + where;
+
+        try (Connection conn = DatabaseConnection.connect()) {
+            Map<String, String> actual = loadTotals(conn, actualSql, userId);
+            Map<String, String> rollup = loadTotals(conn, rollupSql, userId);
+
+            int drift = 0;
+            for (Map.Entry<String, String> e : actual.entrySet()) {
+                String stored = rollup.remove(e.getKey());
+                if (!e.getValue().equals(stored)) {
+                    drift++;
+                    System.out.println("⚠️ " + e.getKey() + ": expenses=" + e.getValue() + " rollup=" + stored);
+                }
+            }
+            for (Map.Entry<String, String> e : rollup.entrySet()) {
+                if (!e.getValue().endsWith("/0")) { // rows emptied by deletes are harmless
+                    drift++;
+                    System.out.println("⚠️ " + e.getKey() + ": expenses=null rollup=" + e.getValue());
+                }
+            }
+            return drift;
+
+        } catch (SQLException e) {
+            System.out.println("❌ Rollup check failed: " + e.getMessage());
+            return -1;
+        }
+    }
+
+    // "user/category/ym" -> "total/count"
+    private static Map<String, String> loadTotals(Connection conn, String sql, Integer userId) throws SQLException {
+        Map<String, String> totals = new HashMap<>();
+        try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            if (userId != null) pstmt.setInt(1, userId);
+            ResultSet rs = pstmt.executeQuery();
+            while (rs.next()) {
+                String key = "user " + rs.getInt("user_id") + " / category " + rs.getInt("category_id") + " / " + rs.getInt("ym");
+                totals.put(key, rs.getBigDecimal("total").setScale(2) + "/" + rs.getLong("cnt"));
+            }
+        }
+        return totals;
+    }
+
+    public static void main(String[] args) {
+        String command = args.length > 0 ? args[0] : "check";
+        Integer userId = args.length > 1 ? Integer.valueOf(args[1]) : null;
+
+        int status;
+        if ("rebuild".equals(command)) {
+            status = rebuild(userId) ? 0 : 1;
+        } else if ("check".equals(command)) {
+            int drift = check(userId);
+            if (drift == 0) System.out.println("✅ Rollup matches expenses");
+            else if (drift > 0) System.out.println("❌ " + drift + " drifted rollup row(s); run: java ExpenseRollup rebuild");
+            status = drift == 0 ? 0 : 1;
+        } else {
+            System.out.println("Usage: java ExpenseRollup check|rebuild [userId]");
+            status = 2;
+        }
+        DatabaseConnection.shutdown();
+        System.exit(status);
+    }
+}
@@ -1,20 +1,30 @@
+import javafx.animation.PauseTransition;
 import javafx.application.Application;
+import javafx.beans.binding.Bindings;
+import javafx.concurrent.Task;
 import javafx.geometry.Insets;
 import javafx.scene.Scene;
 import javafx.scene.chart.*;
 import javafx.scene.control.*;
 import javafx.scene.layout.*;
 import javafx.stage.Stage;
+import javafx.util.Duration;
+import java.sql.SQLException;
 import java.time.LocalDate;
 import java.util.*;
 
 public class ExpenseTrackerUI extends Application {
 
-    private TextField amountField, descField;
+    private static final int SEARCH_RESULTS = 50;
+
+    private TextField amountField, descField, searchField;
     private ComboBox<String> categoryBox;
     private DatePicker datePicker;
     private TextArea outputArea;
     private User currentUser;
+    private int searchGeneration; // only the newest search may write its results
+    private LedgerTable ledger;
+    private Stage ledgerStage;
 
     public ExpenseTrackerUI(User user) {
         this.currentUser = user;
@@ -29,7 +39,9 @@ public class ExpenseTrackerUI extends Application {
 
         Label categoryLabel = new Label("Category:");
         categoryBox = new ComboBox<>();
-        categoryBox.getItems().addAll("Food", "Travel", "Shopping", "Bills", "Entertainment");
+        for (Category category : CategoryManager.getCategories()) {
+            categoryBox.getItems().add(category.getCategoryName());
+        }
         categoryBox.setPromptText("Select category");
 
         Label amountLabel = new Label("Amount:");
@@ -49,6 +61,9 @@ public class ExpenseTrackerUI extends Application {
         Button monthlyBtn = new Button("📅 Monthly Summary"); // ✅ NEW
         Button logoutBtn = new Button("🚪 Logout");
 
+        searchField = new TextField();
+        searchField.setPromptText("🔎 Search descriptions (e.g. \"coffee\" or \"uber air\")");
+
         outputArea = new TextArea();
         outputArea.setEditable(false);
         outputArea.setPrefHeight(250);
@@ -63,6 +78,7 @@ public class ExpenseTrackerUI extends Application {
                 descLabel, descField,
                 dateLabel, datePicker,
                 topButtons,
+                searchField,
                 outputArea
         );
         form.setPadding(new Insets(20));
@@ -73,7 +89,16 @@ public class ExpenseTrackerUI extends Application {
         monthlyBtn.setOnAction(e -> showMonthlyChart()); // ✅ new
         logoutBtn.setOnAction(e -> logout(stage));
 
-        Scene scene = new Scene(form, 520, 560);
+        // ✅ Search as you type, once typing pauses
+        PauseTransition searchDelay = new PauseTransition(Duration.millis(150));
+        searchDelay.setOnFinished(e -> searchExpenses(searchField.getText()));
+        searchField.textProperty().addListener((obs, old, text) -> searchDelay.playFromStart());
+        searchField.setOnAction(e -> {
+            searchDelay.stop();
+            searchExpenses(searchField.getText());
+        });
+
+        Scene scene = new Scene(form, 520, 600);
         stage.setScene(scene);
         stage.show();
     }
@@ -99,6 +124,7 @@ public class ExpenseTrackerUI extends Application {
 
             if (success) {
                 outputArea.setText("✅ Expense added successfully!");
+                if (ledgerStage != null && ledgerStage.isShowing()) ledger.reload();
                 amountField.clear();
                 descField.clear();
                 categoryBox.setValue(null);
@@ -113,42 +139,84 @@ public class ExpenseTrackerUI extends Application {
         }
     }
 
+    // ✅ Ledger window: a virtualized table paged in from storage, sorted by clicking a column header
     private void viewExpenses() {
-        outputArea.clear();
-        try {
-            int userId = currentUser.getUserId();
-            List<Expense> list = ExpenseManager.getUserExpenses(userId);
-
-            if (list.isEmpty()) {
-                outputArea.setText("No expenses found.");
-                return;
-            }
+        if (ledgerStage != null && ledgerStage.isShowing()) {
+            ledger.reload();
+            ledgerStage.toFront();
+            return;
+        }
 
-            StringBuilder sb = new StringBuilder();
-            sb.append(String.format("%-15s %-10s %-12s %-30s\n", "CATEGORY", "AMOUNT", "DATE", "DESCRIPTION"));
-            sb.append("=".repeat(70)).append("\n");
+        ledger = new LedgerTable(currentUser.getUserId());
+        Label countLabel = new Label();
+        countLabel.textProperty().bind(Bindings.createStringBinding(() -> {
+            int total = ledger.totalProperty().get();
+            return total < 0 ? "" : String.format("%,d expenses", total);
+        }, ledger.totalProperty()));
+
+        VBox layout = new VBox(10, ledger, countLabel);
+        VBox.setVgrow(ledger, Priority.ALWAYS);
+        layout.setPadding(new Insets(20));
+
+        LedgerTable shown = ledger;
+        ledgerStage = new Stage();
+        ledgerStage.setTitle("📋 Expenses - " + currentUser.getFullName());
+        ledgerStage.setScene(new Scene(layout, 680, 520));
+        ledgerStage.setOnHidden(e -> shown.shutdown());
+        ledgerStage.show();
+    }
 
-            for (Expense exp : list) {
-                sb.append(String.format("%-15s %-10.2f %-12s %-30s\n",
-                        exp.getCategoryName(), exp.getAmount(), exp.getExpenseDate(), exp.getDescription()));
+    // ✅ Ranked full-text search; off the FX thread because the first search loads the user's index
+    private void searchExpenses(String query) {
+        int generation = ++searchGeneration;
+        if (query == null || query.isBlank()) {
+            outputArea.clear();
+            return;
+        }
+        int userId = currentUser.getUserId();
+        Task<SearchIndex.Result> task = new Task<>() {
+            @Override
+            protected SearchIndex.Result call() throws SQLException {
+                return ExpenseManager.searchExpenses(userId, query, SEARCH_RESULTS);
             }
+        };
+        task.setOnSucceeded(e -> {
+            if (generation == searchGeneration) showSearchResults(query, task.getValue());
+        });
+        task.setOnFailed(e -> {
+            if (generation == searchGeneration) outputArea.setText("❌ Search failed: " + task.getException().getMessage());
+        });
+        Thread thread = new Thread(task, "expense-search");
+        thread.setDaemon(true);
+        thread.start();
+    }
 
-            sb.append("=".repeat(70)).append("\n");
-            outputArea.setText(sb.toString());
-            outputArea.setStyle("-fx-font-family: 'Consolas'; -fx-font-size: 13px; -fx-control-inner-background: #f8f9fa;");
+    private void showSearchResults(String query, SearchIndex.Result result) {
+        if (result.hits().isEmpty()) {
+            outputArea.setText("No expenses match \"" + query.trim() + "\".");
+            return;
+        }
 
-        } catch (Exception e) {
-            outputArea.setText("❌ Failed to load expenses: " + e.getMessage());
-            e.printStackTrace();
+        StringBuilder sb = new StringBuilder();
+        sb.append(String.format("🔎 %d match%s for \"%s\"%s\n", result.matches(), result.matches() == 1 ? "" : "es",
+                query.trim(), result.matches() > result.hits().size() ? " (best " + result.hits().size() + " shown)" : ""));
+        sb.append(String.format("%-15s %-10s %-12s %-30s\n", "CATEGORY", "AMOUNT", "DATE", "DESCRIPTION"));
+        sb.append("=".repeat(70)).append("\n");
+        for (SearchIndex.Hit hit : result.hits()) {
+            Expense exp = hit.expense();
+            sb.append(String.format("%-15s %-10.2f %-12s %-30s\n",
+                    exp.getCategoryName(), exp.getAmount(), exp.getExpenseDate(), exp.getDescription()));
         }
+        outputArea.setText(sb.toString());
+        outputArea.setStyle("-fx-font-family: 'Consolas'; -fx-font-size: 13px; -fx-control-inner-background: #f8f9fa;");
     }
 
     private void showExpenseChart() {
         try {
             int userId = currentUser.getUserId();
-            List<Expense> expenses = ExpenseManager.getUserExpenses(userId);
+            Map<String, Double> totals = ExpenseManager.getExpensesByCategory(userId);
 
-            if (expenses.isEmpty()) {
+            if (totals.isEmpty()) {
                 Alert alert = new Alert(Alert.AlertType.INFORMATION);
                 alert.setHeaderText(null);
                 alert.setContentText("No expenses to display in chart.");
@@ -156,12 +224,9 @@ public class ExpenseTrackerUI extends Application {
                 return;
             }
 
-            Map<String, Double> totals = new HashMap<>();
             double grandTotal = 0;
-            for (Expense e : expenses) {
-                totals.put(e.getCategoryName(),
-                        totals.getOrDefault(e.getCategoryName(), 0.0) + e.getAmount());
-                grandTotal += e.getAmount();
+            for (double value : totals.values()) {
+                grandTotal += value;
             }
 
             PieChart chart = new PieChart();
@@ -211,8 +276,9 @@ public class ExpenseTrackerUI extends Application {
             XYChart.Series<String, Number> series = new XYChart.Series<>();
             double yearlyTotal = 0;
 
+            double[] monthlyTotals = ExpenseManager.getMonthlyTotals(userId, year);
             for (int month = 1; month <= 12; month++) {
-                double total = ExpenseManager.getTotalExpensesByMonth(userId, year, month);
+                double total = monthlyTotals[month - 1];
                 yearlyTotal += total;
                 String monthName = java.time.Month.of(month).name().substring(0, 3);
                 series.getData().add(new XYChart.Data<>(monthName, total));
@@ -249,14 +315,7 @@ public class ExpenseTrackerUI extends Application {
     }
 
     private int getCategoryId(String categoryName) {
-        return switch (categoryName) {
-            case "Food" -> 1;
-            case "Travel" -> 2;
-            case "Shopping" -> 3;
-            case "Bills" -> 4;
-            case "Entertainment" -> 5;
-            default -> 0;
-        };
+        return CategoryManager.getCategoryId(categoryName);
     }
 
     public static void main(String[] args) {
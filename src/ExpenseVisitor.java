@@ -0,0 +1,12 @@
+import java.io.IOException;
+
+/**
+ * Callback for streaming expense rows out of {@link ExpenseManager}.
+ *
+ * The same Expense instance may be reused for every row, so copy any
+ * values you want to keep after visit() returns.
+ */
+@FunctionalInterface
+public interface ExpenseVisitor {
+    void visit(Expense expense) throws IOException;
+}
@@ -0,0 +1,146 @@
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+
+/**
+ * Write-behind buffer in front of {@link ExpenseManager#addExpenses}.
+ *
+ * Callers enqueue single expenses; one writer thread drains the queue and
+ * commits whatever has accumulated as a single batch, either when maxBatch
+ * rows are waiting or when the time window since the first row runs out.
+ * A full queue pushes back on callers instead of growing without bound.
+ */
+public class ExpenseWriteQueue {
+
+    public enum Durability {
+        ON_ENQUEUE, // acknowledged once buffered; lost if the process dies before the next commit
+        ON_COMMIT   // acknowledged after the batch holding it has been committed
+    }
+
+    private static final long SHUTDOWN_POLL_MS = 100;
+
+    private record Pending(Expense expense, CompletableFuture<Boolean> ack) {}
+
+    private final BlockingQueue<Pending> queue;
+    private final int maxBatch;
+    private final long windowNanos;
+    private final long offerTimeoutMs;
+    private final Thread writer;
+    private volatile boolean running = true;
+
+    public ExpenseWriteQueue(int capacity, int maxBatch, long windowMs, long offerTimeoutMs) {
+        this.queue = new ArrayBlockingQueue<>(capacity);
+        this.maxBatch = maxBatch;
+        this.windowNanos = TimeUnit.MILLISECONDS.toNanos(windowMs);
+        this.offerTimeoutMs = offerTimeoutMs;
+        this.writer = new Thread(this::drainLoop, "expense-writer");
+        this.writer.setDaemon(true);
+        this.writer.start();
+    }
+
+    // Completes with true/false for the insert, or exceptionally with RejectedExecutionException when full
+    public CompletableFuture<Boolean> submit(Expense expense, Durability durability) {
+        CompletableFuture<Boolean> ack = new CompletableFuture<>();
+        if (!running) {
+            ack.completeExceptionally(new RejectedExecutionException("Write queue is shut down"));
+            return ack;
+        }
+
+        boolean onCommit = durability == Durability.ON_COMMIT;
+        Pending pending = new Pending(expense, onCommit ? ack : null);
+        try {
+            if (!queue.offer(pending, offerTimeoutMs, TimeUnit.MILLISECONDS)) {
+                ack.completeExceptionally(new RejectedExecutionException("Write queue is full"));
+                return ack;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            ack.completeExceptionally(e);
+            return ack;
+        }
+
+        if (!onCommit) ack.complete(true);
+        return ack;
+    }
+
+    public int pending() {
+        return queue.size();
+    }
+
+    // Stop accepting new rows and wait for everything already queued to be written.
+    // The writer is never interrupted: a flag set mid-batch would fail the next pool borrow.
+    public void shutdown(long timeoutMs) {
+        running = false;
+        try {
+            writer.join(timeoutMs);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void drainLoop() {
+        List<Pending> batch = new ArrayList<>(maxBatch);
+        while (true) {
+            try {
+                // short poll so a shutdown is noticed without interrupting us
+                Pending first = queue.poll(SHUTDOWN_POLL_MS, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    if (running) continue;
+                    break; // stopped and drained
+                }
+                batch.add(first);
+
+                // group commit: keep collecting until the batch is full or the window closes
+                long deadline = System.nanoTime() + windowNanos;
+                while (batch.size() < maxBatch) {
+                    long remaining = deadline - System.nanoTime();
+                    Pending next = remaining > 0 && running
+                            ? queue.poll(remaining, TimeUnit.NANOSECONDS)
+                            : queue.poll();
+                    if (next == null) break;
+                    batch.add(next);
+                }
+            } catch (InterruptedException e) {
+                // nobody should interrupt us; write what we have and carry on
+            }
+
+            if (!batch.isEmpty()) {
+                write(batch);
+                batch.clear();
+            }
+        }
+
+        // rows offered in the instant between the last poll and stopping
+        for (Pending late; (late = queue.poll()) != null; ) {
+            if (late.ack() != null) late.ack().completeExceptionally(new RejectedExecutionException("Write queue is shut down"));
+            else System.out.println("❌ Buffered expense was not saved: write queue shut down");
+        }
+    }
+
+    // Never throws: whatever goes wrong fails this batch's acks and the loop moves on to the next one
+    private void write(List<Pending> batch) {
+        List<Expense> rows = new ArrayList<>(batch.size());
+        for (Pending p : batch) rows.add(p.expense());
+
+        BatchResult result;
+        try {
+            result = ExpenseManager.addExpenses(rows, batch.size());
+        } catch (RuntimeException e) {
+            System.out.println("❌ Buffered batch of " + batch.size() + " expenses was not saved: " + e);
+            for (Pending p : batch) {
+                if (p.ack() != null) p.ack().completeExceptionally(e);
+            }
+            return;
+        }
+        for (int i = 0; i < batch.size(); i++) {
+            CompletableFuture<Boolean> ack = batch.get(i).ack();
+            boolean ok = i < result.size() && result.isSuccess(i);
+            if (ack != null) {
+                ack.complete(ok);
+            } else if (!ok) {
+                System.out.println("❌ Buffered expense was not saved: "
+                        + (i < result.size() ? result.getError(i) : "batch aborted"));
+            }
+        }
+    }
+}
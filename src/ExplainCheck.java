@@ -0,0 +1,57 @@
+import java.sql.*;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Runs EXPLAIN on the hot ExpenseManager queries and reports which index each one uses.
+ *
+ * Usage: java ExplainCheck [userId]
+ */
+public class ExplainCheck {
+
+    public static void main(String[] args) {
+        int userId = args.length > 0 ? Integer.parseInt(args[0]) : 1;
+
+        Map<String, String> queries = new LinkedHashMap<>();
+        queries.put("list expenses",
+                "SELECT * FROM expenses WHERE user_id = " + userId + " ORDER BY expense_date DESC, expense_id DESC LIMIT 50");
+        queries.put("keyset page",
+                "SELECT * FROM expenses WHERE user_id = " + userId
+                + " AND (expense_date < '2025-06-01' OR (expense_date = '2025-06-01' AND expense_id < 1000))"
+                + " ORDER BY expense_date DESC, expense_id DESC LIMIT 50");
+        queries.put("month total",
+                "SELECT SUM(amount) FROM expenses WHERE user_id = " + userId
+                + " AND expense_date >= '2025-06-01' AND expense_date < '2025-07-01'");
+        queries.put("monthly breakdown",
+                "SELECT YEAR(expense_date) y, MONTH(expense_date) m, SUM(amount) FROM expenses WHERE user_id = " + userId
+                + " AND expense_date >= '2025-01-01' AND expense_date < '2026-01-01' GROUP BY y, m");
+        queries.put("category range total",
+                "SELECT SUM(amount) FROM expenses WHERE user_id = " + userId
+                + " AND category_id = 1 AND expense_date >= '2025-01-01' AND expense_date < '2026-01-01'");
+
+        boolean allGood = true;
+        try (Connection conn = DatabaseConnection.connect();
+             Statement stmt = conn.createStatement()) {
+
+            for (Map.Entry<String, String> q : queries.entrySet()) {
+                try (ResultSet rs = stmt.executeQuery("EXPLAIN " + q.getValue())) {
+                    while (rs.next()) {
+                        String type = rs.getString("type");
+                        String key = rs.getString("key");
+                        boolean ok = key != null && !"ALL".equals(type) && !"index".equals(type);
+                        allGood &= ok;
+                        System.out.printf("%s %-22s type=%-6s key=%-28s rows=%s%n",
+                                ok ? "✅" : "❌", q.getKey(), type, key, rs.getString("rows"));
+                    }
+                }
+            }
+
+        } catch (SQLException e) {
+            System.out.println("❌ EXPLAIN failed: " + e.getMessage());
+            allGood = false;
+        }
+
+        DatabaseConnection.shutdown();
+        System.exit(allGood ? 0 : 1);
+    }
+}
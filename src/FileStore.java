@@ -0,0 +1,607 @@
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.sql.SQLDataException;
+import java.sql.SQLException;
+import java.sql.SQLIntegrityConstraintViolationException;
+import java.time.LocalDate;
+import java.util.*;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Embedded storage with no database server: all data lives in memory and
+ * every change is appended to a journal file (-Dstorage.backend=file).
+ *
+ * Opening the store replays the journal. Reads take a shared lock and never
+ * touch the disk; writes take the exclusive lock, append their records and
+ * flush before returning (-Dstorage.file.fsync=true also forces them to disk).
+ * Foreign keys, the users' unique columns and the DECIMAL(10,2) range are
+ * checked the same way MySQL would, so both backends accept the same input.
+ *
+ * One record per line, tab-separated, text fields Base64-encoded:
+ *   C id name | U id username email hash fullName | P id hash
+ *   E id userId categoryId cents epochDay description | D id
+ */
+public class FileStore implements ExpenseRepository, UserRepository, CategoryRepository, Closeable {
+
+    private static final String[] DEFAULT_CATEGORIES = {"Food", "Travel", "Shopping", "Bills", "Entertainment"};
+    private static final long MAX_CENTS = 9_999_999_999L; // DECIMAL(10,2)
+
+    private static final int VISIT_CHUNK = 1024;
+
+    private record Row(int expenseId, int userId, int categoryId, long cents, String description, LocalDate date) {}
+
+    private record StoredUser(int userId, String username, String email, String passwordHash, String fullName) {
+        User toUser() {
+            User user = new User();
+            user.setUserId(userId);
+            user.setUsername(username);
+            user.setEmail(email);
+            user.setFullName(fullName);
+            return user;
+        }
+    }
+
+    private final Path file;
+    private final boolean fsync;
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private final SortedMap<Integer, String> categories = new TreeMap<>();
+    private final Map<Integer, StoredUser> users = new HashMap<>();
+    private final Map<String, Integer> userIdsByName = new HashMap<>();
+    private final Set<String> emails = new HashSet<>();
+    private final Map<Integer, Row> rowsById = new HashMap<>();
+    // per user, ordered by (expense_date, expense_id); see key()
+    private final Map<Integer, NavigableMap<Long, Row>> rowsByUser = new HashMap<>();
+
+    private int nextCategoryId = 1;
+    private int nextUserId = 1;
+    private int nextExpenseId = 1;
+
+    private FileOutputStream journalFile;
+    private OutputStream journal;
+
+    private FileStore(Path file, boolean fsync) {
+        this.file = file;
+        this.fsync = fsync;
+    }
+
+    // ✅ Open (or create) the store, replaying everything already in the journal
+    public static FileStore open(Path file, boolean fsync) throws IOException {
+        FileStore store = new FileStore(file, fsync);
+        Path dir = file.toAbsolutePath().getParent();
+        if (dir != null) Files.createDirectories(dir);
+
+        boolean fresh = !Files.exists(file) || Files.size(file) == 0;
+        if (!fresh) {
+            dropTornTail(file);
+            store.replay();
+        }
+        store.journalFile = new FileOutputStream(file.toFile(), true);
+        store.journal = new BufferedOutputStream(store.journalFile, 64 * 1024);
+
+        if (fresh) {
+            List<String> seed = new ArrayList<>();
+            for (String name : DEFAULT_CATEGORIES) {
+                int id = store.nextCategoryId;
+                seed.add("C\t" + id + "\t" + b64(name));
+                store.applyCategory(id, name);
+            }
+            store.write(seed);
+        }
+        System.out.println("📁 File store " + file + ": " + store.users.size() + " user(s), "
+                + store.rowsById.size() + " expense(s)");
+        return store;
+    }
+
+    @Override
+    public void close() throws IOException {
+        lock.writeLock().lock();
+        try {
+            journal.flush();
+            journalFile.getChannel().force(false);
+            journal.close();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // ---------------- EXPENSES ----------------
+
+    @Override
+    public boolean insert(Expense expense) throws SQLException {
+        String error = insertBatch(List.of(expense))[0];
+        if (error != null) throw new SQLIntegrityConstraintViolationException(error);
+        return true;
+    }
+
+    // Valid rows are appended together with one flush; invalid ones get an error and are skipped
+    @Override
+    public String[] insertBatch(List<Expense> rows) throws SQLException {
+        String[] errors = new String[rows.size()];
+        lock.writeLock().lock();
+        try {
+            List<String> lines = new ArrayList<>(rows.size());
+            List<Row> accepted = new ArrayList<>(rows.size());
+            int id = nextExpenseId;
+            for (int i = 0; i < rows.size(); i++) {
+                Expense e = rows.get(i);
+                try {
+                    checkExpense(e);
+                } catch (SQLException problem) {
+                    errors[i] = problem.getMessage();
+                    continue;
+                }
+                Row row = new Row(id++, e.getUserId(), e.getCategoryId(), ExpenseRollup.toCents(e.getAmount()),
+                        e.getDescription(), e.getExpenseDate());
+                lines.add("E\t" + row.expenseId() + "\t" + row.userId() + "\t" + row.categoryId() + "\t"
+                        + row.cents() + "\t" + row.date().toEpochDay() + "\t" + b64(row.description()));
+                accepted.add(row);
+            }
+            if (lines.isEmpty()) return errors;
+            append(lines);
+            for (Row row : accepted) applyInsert(row);
+            int r = 0;
+            for (int i = 0; i < rows.size(); i++) {
+                if (errors[i] == null) rows.get(i).setExpenseId(accepted.get(r++).expenseId());
+            }
+            return errors;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void checkExpense(Expense e) throws SQLException {
+        if (!users.containsKey(e.getUserId())) {
+            throw new SQLIntegrityConstraintViolationException("Unknown user_id " + e.getUserId());
+        }
+        if (!categories.containsKey(e.getCategoryId())) {
+            throw new SQLIntegrityConstraintViolationException("Unknown category_id " + e.getCategoryId());
+        }
+        if (Math.abs(ExpenseRollup.toCents(e.getAmount())) > MAX_CENTS) {
+            throw new SQLDataException("Out of range value for column 'amount'");
+        }
+        if (e.getDescription() != null && e.getDescription().length() > 255) {
+            throw new SQLDataException("Data too long for column 'description'");
+        }
+    }
+
+    @Override
+    public boolean delete(int expenseId, int userId) throws SQLException {
+        lock.writeLock().lock();
+        try {
+            Row row = rowsById.get(expenseId);
+            if (row == null || row.userId() != userId) return false;
+            append(List.of("D\t" + expenseId));
+            applyDelete(expenseId);
+            return true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Rows are copied out under the lock and visited after it is released, so a slow
+    // visitor (e.g. an HTTP client) never holds up writers
+    @Override
+    public int forEachExpense(ExpenseVisitor visitor) throws IOException {
+        List<Row> rows;
+        lock.readLock().lock();
+        try {
+            rows = new ArrayList<>(rowsById.values());
+        } finally {
+            lock.readLock().unlock();
+        }
+        return visit(rows, true, visitor);
+    }
+
+    @Override
+    public int forEachUserExpense(int userId, boolean reuseRow, ExpenseVisitor visitor) throws IOException {
+        return visitInChunks(userId, null, null, reuseRow, visitor);
+    }
+
+    @Override
+    public int forEachExpenseInRange(int userId, LocalDate from, LocalDate to, boolean reuseRow,
+                                     ExpenseVisitor visitor) throws IOException {
+        return visitInChunks(userId, from, to, reuseRow, visitor);
+    }
+
+    @Override
+    public List<Expense> page(int userId, ExpenseCursor cursor, int limit) {
+        List<Expense> page = new ArrayList<>(Math.min(limit, 1024));
+        lock.readLock().lock();
+        try {
+            NavigableMap<Long, Row> rows = rowsByUser.get(userId);
+            if (rows == null) return page;
+            NavigableMap<Long, Row> older = cursor == null ? rows
+                    : rows.headMap(key(cursor.expenseDate(), cursor.expenseId()), false);
+            for (Row row : older.descendingMap().values()) {
+                if (page.size() == limit) break;
+                page.add(toExpense(row, new Expense()));
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        return page;
+    }
+
+    @Override
+    public List<Expense> recent(int userId, int limit) {
+        return page(userId, null, limit);
+    }
+
+    // ✅ Date order is the map's own key order, so that sort walks the user's rows and stops after the
+    // window; other sorts keep only the offset + limit best rows in a heap instead of sorting everything
+    @Override
+    public List<Expense> query(ExpenseQuery query) {
+        lock.readLock().lock();
+        try {
+            NavigableMap<Long, Row> rows = range(query.userId(), query.from(), query.to());
+            if (query.sort() == ExpenseQuery.Sort.DATE) {
+                List<Expense> result = new ArrayList<>(Math.min(query.limit(), 1024));
+                int skip = query.offset();
+                for (Row row : (query.descending() ? rows.descendingMap() : rows).values()) {
+                    if (!query.matches(row.categoryId(), row.cents(), row.date())) continue;
+                    if (skip > 0) {
+                        skip--;
+                    } else {
+                        result.add(toExpense(row, new Expense()));
+                        if (result.size() == query.limit()) break;
+                    }
+                }
+                return result;
+            }
+
+            Comparator<Expense> order = query.order();
+            int window = (int) Math.min((long) query.offset() + query.limit(), Integer.MAX_VALUE);
+            PriorityQueue<Expense> best = new PriorityQueue<>(Math.min(window, 1024) + 1, order.reversed());
+            Expense candidate = new Expense();
+            for (Row row : rows.values()) {
+                if (!query.matches(row.categoryId(), row.cents(), row.date())) continue;
+                toExpense(row, candidate);
+                if (best.size() < window) {
+                    best.add(candidate);
+                    candidate = new Expense();
+                } else if (order.compare(candidate, best.peek()) < 0) {
+                    Expense worst = best.poll();
+                    best.add(candidate);
+                    candidate = worst;
+                }
+            }
+            List<Expense> sorted = new ArrayList<>(best);
+            sorted.sort(order);
+            return sorted.size() <= query.offset()
+                    ? new ArrayList<>() : new ArrayList<>(sorted.subList(query.offset(), sorted.size()));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public int count(ExpenseQuery query) {
+        int count = 0;
+        lock.readLock().lock();
+        try {
+            for (Row row : range(query.userId(), query.from(), query.to()).values()) {
+                if (query.matches(row.categoryId(), row.cents(), row.date())) count++;
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        return count;
+    }
+
+    // Newest first, VISIT_CHUNK rows per read-lock hold: a slow visitor (an export streaming to
+    // a slow client) neither blocks writers nor makes us copy the user's whole history
+    private int visitInChunks(int userId, LocalDate from, LocalDate to, boolean reuseRow,
+                              ExpenseVisitor visitor) throws IOException {
+        Expense reused = new Expense();
+        List<Row> chunk = new ArrayList<>(VISIT_CHUNK);
+        Long resumeBelow = null;
+        int visited = 0;
+        while (true) {
+            chunk.clear();
+            lock.readLock().lock();
+            try {
+                NavigableMap<Long, Row> rows = range(userId, from, to);
+                if (resumeBelow != null) rows = rows.headMap(resumeBelow, false);
+                for (Row row : rows.descendingMap().values()) {
+                    chunk.add(row);
+                    if (chunk.size() == VISIT_CHUNK) break;
+                }
+            } finally {
+                lock.readLock().unlock();
+            }
+            for (Row row : chunk) {
+                visitor.visit(toExpense(row, reuseRow ? reused : new Expense()));
+            }
+            visited += chunk.size();
+            if (chunk.size() < VISIT_CHUNK) return visited;
+            Row last = chunk.get(chunk.size() - 1);
+            resumeBelow = key(last.date(), last.expenseId());
+        }
+    }
+
+    private static int visit(List<Row> rows, boolean reuseRow, ExpenseVisitor visitor) throws IOException {
+        Expense reused = new Expense();
+        for (Row row : rows) {
+            visitor.visit(toExpense(row, reuseRow ? reused : new Expense()));
+        }
+        return rows.size();
+    }
+
+    private static Expense toExpense(Row row, Expense exp) {
+        exp.setExpenseId(row.expenseId());
+        exp.setUserId(row.userId());
+        exp.setCategoryId(row.categoryId());
+        exp.setAmount(row.cents() / 100.0);
+        exp.setDescription(row.description());
+        exp.setExpenseDate(row.date());
+        exp.setCategoryName(CategoryManager.getCategoryName(row.categoryId()));
+        return exp;
+    }
+
+    // ---------------- AGGREGATES ----------------
+    // Summed in cents, like the DECIMAL columns on the JDBC backend
+
+    @Override
+    public Map<Integer, Double> totalsByCategory(int userId) {
+        Map<Integer, Long> cents = new TreeMap<>();
+        lock.readLock().lock();
+        try {
+            for (Row row : range(userId, null, null).values()) {
+                cents.merge(row.categoryId(), row.cents(), Long::sum);
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        return toAmounts(cents);
+    }
+
+    @Override
+    public double totalForMonths(int userId, int fromYm, int toYm) {
+        return totalInRange(userId, 0, monthStart(fromYm), monthStart(toYm).plusMonths(1));
+    }
+
+    @Override
+    public Map<Integer, Double> totalsByMonth(int userId, int fromYm, int toYm) {
+        Map<Integer, Long> cents = new TreeMap<>();
+        lock.readLock().lock();
+        try {
+            for (Row row : range(userId, monthStart(fromYm), monthStart(toYm).plusMonths(1)).values()) {
+                cents.merge(ExpenseRollup.monthKey(row.date()), row.cents(), Long::sum);
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        return toAmounts(cents);
+    }
+
+    @Override
+    public double totalInRange(int userId, int categoryId, LocalDate from, LocalDate to) {
+        long cents = 0;
+        lock.readLock().lock();
+        try {
+            for (Row row : range(userId, from, to).values()) {
+                if (categoryId == 0 || row.categoryId() == categoryId) cents += row.cents();
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        return cents / 100.0;
+    }
+
+    // Rows of a user with from <= date < to (null = unbounded); caller holds the read lock
+    private NavigableMap<Long, Row> range(int userId, LocalDate from, LocalDate to) {
+        NavigableMap<Long, Row> rows = rowsByUser.get(userId);
+        if (rows == null) return Collections.emptyNavigableMap();
+        if (from != null) rows = rows.tailMap(key(from, 0), true);
+        if (to != null) rows = rows.headMap(key(to, 0), false);
+        return rows;
+    }
+
+    // expense ids are positive, so (date, 0) sorts before every row on that date
+    private static long key(LocalDate date, int expenseId) {
+        return (date.toEpochDay() << 32) | (expenseId & 0xFFFF_FFFFL);
+    }
+
+    private static LocalDate monthStart(int ym) {
+        return LocalDate.of(ym / 100, ym % 100, 1);
+    }
+
+    private static Map<Integer, Double> toAmounts(Map<Integer, Long> cents) {
+        Map<Integer, Double> amounts = new LinkedHashMap<>();
+        cents.forEach((k, v) -> amounts.put(k, v / 100.0));
+        return amounts;
+    }
+
+    // ---------------- USERS ----------------
+
+    @Override
+    public boolean insert(User user, String passwordHash) throws SQLException {
+        lock.writeLock().lock();
+        try {
+            if (userIdsByName.containsKey(user.getUsername())) {
+                throw new SQLIntegrityConstraintViolationException("Duplicate entry '" + user.getUsername() + "' for key 'username'");
+            }
+            if (emails.contains(user.getEmail())) {
+                throw new SQLIntegrityConstraintViolationException("Duplicate entry '" + user.getEmail() + "' for key 'email'");
+            }
+            StoredUser stored = new StoredUser(nextUserId, user.getUsername(), user.getEmail(), passwordHash, user.getFullName());
+            append(List.of("U\t" + stored.userId() + "\t" + b64(stored.username()) + "\t" + b64(stored.email())
+                    + "\t" + b64(passwordHash) + "\t" + b64(stored.fullName())));
+            applyUser(stored);
+            return true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public Account findByUsername(String username) {
+        lock.readLock().lock();
+        try {
+            Integer id = userIdsByName.get(username);
+            if (id == null) return null;
+            StoredUser stored = users.get(id);
+            return new Account(stored.toUser(), stored.passwordHash());
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public User findById(int userId) {
+        lock.readLock().lock();
+        try {
+            StoredUser stored = users.get(userId);
+            return stored != null ? stored.toUser() : null;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public boolean updatePasswordHash(int userId, String expectedHash, String newHash) throws SQLException {
+        lock.writeLock().lock();
+        try {
+            StoredUser stored = users.get(userId);
+            if (stored == null || !stored.passwordHash().equals(expectedHash)) return false;
+            append(List.of("P\t" + userId + "\t" + b64(newHash)));
+            applyPassword(userId, newHash);
+            return true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // ---------------- CATEGORIES ----------------
+
+    @Override
+    public List<Category> loadAll() {
+        lock.readLock().lock();
+        try {
+            List<Category> list = new ArrayList<>(categories.size());
+            categories.forEach((id, name) -> list.add(new Category(id, name)));
+            return list;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public boolean insert(String categoryName) throws SQLException {
+        lock.writeLock().lock();
+        try {
+            int id = nextCategoryId;
+            append(List.of("C\t" + id + "\t" + b64(categoryName)));
+            applyCategory(id, categoryName);
+            return true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // ---------------- JOURNAL ----------------
+
+    // Caller holds the write lock; state is only changed after the records are written
+    private void append(List<String> lines) throws SQLException {
+        try {
+            write(lines);
+        } catch (IOException e) {
+            throw new SQLException("Could not write to " + file + ": " + e.getMessage(), e);
+        }
+    }
+
+    private void write(List<String> lines) throws IOException {
+        for (String line : lines) {
+            journal.write(line.getBytes(StandardCharsets.UTF_8));
+            journal.write('\n');
+        }
+        journal.flush();
+        if (fsync) journalFile.getChannel().force(false);
+    }
+
+    private void replay() throws IOException {
+        Base64.Decoder b64 = Base64.getDecoder();
+        int lineNo = 0;
+        try (BufferedReader in = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = in.readLine()) != null) {
+                lineNo++;
+                String[] f = line.split("\t", -1);
+                try {
+                    switch (f[0]) {
+                        case "C" -> applyCategory(Integer.parseInt(f[1]), text(b64, f[2]));
+                        case "U" -> applyUser(new StoredUser(Integer.parseInt(f[1]), text(b64, f[2]),
+                                text(b64, f[3]), text(b64, f[4]), text(b64, f[5])));
+                        case "P" -> applyPassword(Integer.parseInt(f[1]), text(b64, f[2]));
+                        case "E" -> applyInsert(new Row(Integer.parseInt(f[1]), Integer.parseInt(f[2]),
+                                Integer.parseInt(f[3]), Long.parseLong(f[4]),
+                                text(b64, f[6]), LocalDate.ofEpochDay(Long.parseLong(f[5]))));
+                        case "D" -> applyDelete(Integer.parseInt(f[1]));
+                        default -> throw new IllegalArgumentException("unknown record type");
+                    }
+                } catch (RuntimeException e) {
+                    throw new IOException(file + " line " + lineNo + " is corrupt: " + e.getMessage(), e);
+                }
+            }
+        }
+    }
+
+    // A crash mid-write can leave a partial last line; cut it off so new records start on a fresh line
+    private static void dropTornTail(Path file) throws IOException {
+        try (FileChannel ch = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            long size = ch.size();
+            ByteBuffer one = ByteBuffer.allocate(1);
+            long end = size;
+            while (end > 0) {
+                one.clear();
+                ch.read(one, end - 1);
+                if (one.get(0) == '\n') break;
+                end--;
+            }
+            if (end < size) {
+                System.out.println("⚠️ Dropping " + (size - end) + " byte(s) of an incomplete record from " + file);
+                ch.truncate(end);
+            }
+        }
+    }
+
+    private void applyCategory(int id, String name) {
+        categories.put(id, name);
+        nextCategoryId = Math.max(nextCategoryId, id + 1);
+    }
+
+    private void applyUser(StoredUser user) {
+        users.put(user.userId(), user);
+        userIdsByName.put(user.username(), user.userId());
+        emails.add(user.email());
+        nextUserId = Math.max(nextUserId, user.userId() + 1);
+    }
+
+    private void applyPassword(int userId, String hash) {
+        StoredUser u = users.get(userId);
+        if (u != null) users.put(userId, new StoredUser(u.userId(), u.username(), u.email(), hash, u.fullName()));
+    }
+
+    private void applyInsert(Row row) {
+        rowsById.put(row.expenseId(), row);
+        rowsByUser.computeIfAbsent(row.userId(), k -> new TreeMap<>()).put(key(row.date(), row.expenseId()), row);
+        nextExpenseId = Math.max(nextExpenseId, row.expenseId() + 1);
+    }
+
+    private void applyDelete(int expenseId) {
+        Row row = rowsById.remove(expenseId);
+        if (row != null) rowsByUser.get(row.userId()).remove(key(row.date(), row.expenseId()));
+    }
+
+    private static String b64(String text) {
+        return text == null ? "-" : Base64.getEncoder().encodeToString(text.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String text(Base64.Decoder b64, String field) {
+        return field.equals("-") ? null : new String(b64.decode(field), StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,33 @@
+import java.sql.*;
+import java.util.ArrayList;
+import java.util.List;
+
+/** MySQL-backed categories table (the default backend). */
+public class JdbcCategoryRepository implements CategoryRepository {
+
+    @Override
+    public List<Category> loadAll() throws SQLException {
+        String sql = "SELECT category_id, category_name FROM categories ORDER BY category_id";
+        List<Category> categories = new ArrayList<>();
+        try (Connection conn = DatabaseConnection.connect();
+             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+
+            ResultSet rs = pstmt.executeQuery();
+            while (rs.next()) {
+                categories.add(new Category(rs.getInt("category_id"), rs.getString("category_name")));
+            }
+        }
+        return categories;
+    }
+
+    @Override
+    public boolean insert(String categoryName) throws SQLException {
+        String sql = "INSERT INTO categories (category_name) VALUES (?)";
+        try (Connection conn = DatabaseConnection.connect();
+             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+
+            pstmt.setString(1, categoryName);
+            return pstmt.executeUpdate() > 0;
+        }
+    }
+}
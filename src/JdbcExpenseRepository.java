@@ -0,0 +1,458 @@
+import java.io.IOException;
+import java.sql.*;
+import java.time.LocalDate;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * MySQL-backed expenses (the default backend).
+ *
+ * Inserts and deletes adjust expense_rollup in the same transaction, so the
+ * month and category totals are read from the rollup instead of scanning rows.
+ */
+public class JdbcExpenseRepository implements ExpenseRepository {
+
+    // Rows per round-trip when streaming through a server-side cursor (needs useCursorFetch=true)
+    private static final int STREAM_FETCH_SIZE = Integer.getInteger("db.streamFetchSize", 500);
+
+    // Bounds bound for the open ends of an ExpenseQuery (MySQL DATE range; beyond DECIMAL(10,2))
+    private static final java.sql.Date MIN_DATE = java.sql.Date.valueOf(LocalDate.of(1000, 1, 1));
+    private static final java.sql.Date MAX_DATE = java.sql.Date.valueOf(LocalDate.of(9999, 12, 31));
+    private static final long AMOUNT_BOUND_CENTS = 100_000_000_000L;
+
+    // ExpenseQuery shape -> SQL text; see querySql()
+    private static final Map<Integer, String> QUERY_SHAPES = new ConcurrentHashMap<>();
+
+    private static final String INSERT_SQL =
+            "INSERT INTO expenses (user_id, category_id, amount, description, expense_date) VALUES (?, ?, ?, ?, ?)";
+
+    // ✅ Row and rollup in one transaction
+    @Override
+    public boolean insert(Expense expense) throws SQLException {
+        try (Connection conn = DatabaseConnection.connect();
+             PreparedStatement pstmt = conn.prepareStatement(INSERT_SQL, Statement.RETURN_GENERATED_KEYS)) {
+
+            conn.setAutoCommit(false);
+            bindInsert(pstmt, expense);
+            boolean inserted = pstmt.executeUpdate() > 0;
+            readGeneratedKeys(pstmt, List.of(expense));
+
+            ExpenseRollup.Deltas rollup = new ExpenseRollup.Deltas();
+            rollup.add(expense);
+            rollup.apply(conn);
+            conn.commit();
+            return inserted;
+        }
+    }
+
+    // ✅ One batched statement and one commit; if the batch fails, roll back and retry row by row
+    // (needs rewriteBatchedStatements=true)
+    @Override
+    public String[] insertBatch(List<Expense> rows) throws SQLException {
+        String[] errors = new String[rows.size()];
+        try (Connection conn = DatabaseConnection.connect();
+             PreparedStatement pstmt = conn.prepareStatement(INSERT_SQL, Statement.RETURN_GENERATED_KEYS)) {
+
+            conn.setAutoCommit(false);
+            ExpenseRollup.Deltas rollup = new ExpenseRollup.Deltas();
+            try {
+                for (Expense expense : rows) {
+                    bindInsert(pstmt, expense);
+                    pstmt.addBatch();
+                    rollup.add(expense);
+                }
+                pstmt.executeBatch();
+                readGeneratedKeys(pstmt, rows);
+                rollup.apply(conn);
+                conn.commit();
+            } catch (SQLException batchError) {
+                conn.rollback();
+                pstmt.clearBatch();
+                for (int i = 0; i < rows.size(); i++) {
+                    try {
+                        rollup = new ExpenseRollup.Deltas();
+                        bindInsert(pstmt, rows.get(i));
+                        pstmt.executeUpdate();
+                        readGeneratedKeys(pstmt, List.of(rows.get(i)));
+                        rollup.add(rows.get(i));
+                        rollup.apply(conn);
+                        conn.commit();
+                    } catch (SQLException rowError) {
+                        conn.rollback();
+                        errors[i] = rowError.getMessage();
+                    }
+                }
+            }
+        }
+        return errors;
+    }
+
+    // auto-increment ids come back in insert order, one per row
+    private static void readGeneratedKeys(PreparedStatement pstmt, List<Expense> rows) throws SQLException {
+        try (ResultSet keys = pstmt.getGeneratedKeys()) {
+            for (Expense expense : rows) {
+                if (!keys.next()) break;
+                expense.setExpenseId(keys.getInt(1));
+            }
+        }
+    }
+
+    private static void bindInsert(PreparedStatement pstmt, Expense expense) throws SQLException {
+        pstmt.setInt(1, expense.getUserId());
+        pstmt.setInt(2, expense.getCategoryId());
+        // same cents as the rollup delta, so expense_rollup.total always equals SUM(amount)
+        pstmt.setBigDecimal(3, java.math.BigDecimal.valueOf(ExpenseRollup.toCents(expense.getAmount()), 2));
+        pstmt.setString(4, expense.getDescription());
+        pstmt.setDate(5, java.sql.Date.valueOf(expense.getExpenseDate()));
+    }
+
+    // ✅ Ownership check and rollup adjustment in the same transaction
+    @Override
+    public boolean delete(int expenseId, int userId) throws SQLException {
+        String select = "SELECT category_id, amount, expense_date FROM expenses WHERE expense_id = ? AND user_id = ? FOR UPDATE";
+        String sql = "DELETE FROM expenses WHERE expense_id = ? AND user_id = ?";
+        try (Connection conn = DatabaseConnection.connect();
+             PreparedStatement lookup = conn.prepareStatement(select);
+             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+
+            conn.setAutoCommit(false);
+            lookup.setInt(1, expenseId);
+            lookup.setInt(2, userId);
+            ResultSet rs = lookup.executeQuery();
+            if (!rs.next()) {
+                conn.rollback();
+                return false;
+            }
+            ExpenseRollup.Deltas rollup = new ExpenseRollup.Deltas();
+            rollup.add(userId, rs.getInt("category_id"), rs.getDate("expense_date").toLocalDate(),
+                    -rs.getBigDecimal("amount").movePointRight(2).longValueExact(), -1);
+
+            pstmt.setInt(1, expenseId);
+            pstmt.setInt(2, userId);
+
+            int rows = pstmt.executeUpdate();
+            rollup.apply(conn);
+            conn.commit();
+            return rows > 0;
+        }
+    }
+
+    // ✅ Every row of the table through a server-side cursor (used to load in-memory indexes)
+    @Override
+    public int forEachExpense(ExpenseVisitor visitor) throws SQLException, IOException {
+        String sql = "SELECT e.* FROM expenses e";
+        try (Connection conn = DatabaseConnection.connect();
+             PreparedStatement pstmt = conn.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+
+            pstmt.setFetchSize(STREAM_FETCH_SIZE);
+            return visitRows(pstmt, true, visitor);
+        }
+    }
+
+    // ✅ Streams through a server-side cursor, so memory stays flat however many rows the user has
+    @Override
+    public int forEachUserExpense(int userId, boolean reuseRow, ExpenseVisitor visitor) throws SQLException, IOException {
+        String sql = """
+            SELECT e.*
+            FROM expenses e
+            WHERE e.user_id = ?
+            ORDER BY e.expense_date DESC, e.expense_id DESC
+        """;
+
+        try (Connection conn = DatabaseConnection.connect();
+             PreparedStatement pstmt = conn.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+
+            pstmt.setInt(1, userId);
+            pstmt.setFetchSize(STREAM_FETCH_SIZE);
+            return visitRows(pstmt, reuseRow, visitor);
+        }
+    }
+
+    // Range is half-open on the bare expense_date column so MySQL can range-scan idx_expenses_user_date
+    @Override
+    public int forEachExpenseInRange(int userId, LocalDate from, LocalDate to, boolean reuseRow,
+                                     ExpenseVisitor visitor) throws SQLException, IOException {
+        String sql = """
+            SELECT e.*
+            FROM expenses e
+            WHERE e.user_id = ? AND e.expense_date >= ? AND e.expense_date < ?
+            ORDER BY e.expense_date DESC, e.expense_id DESC
+        """;
+
+        try (Connection conn = DatabaseConnection.connect();
+             PreparedStatement pstmt = conn.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+
+            pstmt.setInt(1, userId);
+            pstmt.setDate(2, java.sql.Date.valueOf(from));
+            pstmt.setDate(3, java.sql.Date.valueOf(to));
+            pstmt.setFetchSize(STREAM_FETCH_SIZE);
+            return visitRows(pstmt, reuseRow, visitor);
+        }
+    }
+
+    private static int visitRows(PreparedStatement pstmt, boolean reuseRow, ExpenseVisitor visitor)
+            throws SQLException, IOException {
+        int rows = 0;
+        try (ResultSet rs = pstmt.executeQuery()) {
+            Expense row = new Expense();
+            while (rs.next()) {
+                Expense exp = reuseRow ? row : new Expense();
+                mapRow(rs, exp);
+                visitor.visit(exp);
+                rows++;
+            }
+        }
+        return rows;
+    }
+
+    // Copy the current row of an expenses result into exp; the category name comes from the registry
+    private static void mapRow(ResultSet rs, Expense exp) throws SQLException {
+        exp.setExpenseId(rs.getInt("expense_id"));
+        exp.setUserId(rs.getInt("user_id"));
+        exp.setCategoryId(rs.getInt("category_id"));
+        exp.setAmount(rs.getDouble("amount"));
+        exp.setDescription(rs.getString("description"));
+        exp.setExpenseDate(rs.getDate("expense_date").toLocalDate());
+        exp.setCategoryName(CategoryManager.getCategoryName(exp.getCategoryId()));
+    }
+
+    // ✅ Keyset pagination: seeks on (expense_date, expense_id) so deep pages cost the same as the first one
+    @Override
+    public List<Expense> page(int userId, ExpenseCursor cursor, int limit) throws SQLException {
+        String sql = cursor == null ? """
+            SELECT e.*
+            FROM expenses e
+            WHERE e.user_id = ?
+            ORDER BY e.expense_date DESC, e.expense_id DESC
+            LIMIT ?
+        """ : """
+            SELECT e.*
+            FROM expenses e
+            WHERE e.user_id = ?
+              AND (e.expense_date < ? OR (e.expense_date = ? AND e.expense_id < ?))
+            ORDER BY e.expense_date DESC, e.expense_id DESC
+            LIMIT ?
+        """;
+
+        try (Connection conn = DatabaseConnection.connect();
+             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+
+            int i = 1;
+            pstmt.setInt(i++, userId);
+            if (cursor != null) {
+                java.sql.Date date = java.sql.Date.valueOf(cursor.expenseDate());
+                pstmt.setDate(i++, date);
+                pstmt.setDate(i++, date);
+                pstmt.setInt(i++, cursor.expenseId());
+            }
+            pstmt.setInt(i, limit);
+            return readList(pstmt);
+        }
+    }
+
+    @Override
+    public List<Expense> recent(int userId, int limit) throws SQLException {
+        String sql = """
+            SELECT e.*
+            FROM expenses e
+            WHERE e.user_id = ?
+            ORDER BY e.expense_date DESC, e.expense_id DESC
+            LIMIT ?
+        """;
+
+        try (Connection conn = DatabaseConnection.connect();
+             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+
+            pstmt.setInt(1, userId);
+            pstmt.setInt(2, limit);
+            return readList(pstmt);
+        }
+    }
+
+    // ---------------- FILTERED QUERIES ----------------
+    // An ExpenseQuery compiles to one of a few canonical statement texts: the date and amount
+    // bounds are always there (open ends bound as the widest values) and a category IN-list is
+    // padded to a power of two by repeating its last id. Queries differing only in their values
+    // then share one text, which the driver prepares once per connection and keeps in its
+    // statement cache (cachePrepStmts + useServerPrepStmts in DatabaseConnection).
+
+    // ✅ Filtered, sorted window; offset rows are skipped by MySQL, not transferred
+    @Override
+    public List<Expense> query(ExpenseQuery query) throws SQLException {
+        int bucket = categoryBucket(query.categoryCount());
+        String sql = QUERY_SHAPES.computeIfAbsent(shapeKey(bucket, query.sort(), query.descending()),
+                key -> querySql(bucket, query.sort(), query.descending()));
+
+        try (Connection conn = DatabaseConnection.connect();
+             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+
+            int i = bindFilters(pstmt, query, bucket);
+            pstmt.setInt(i++, query.limit());
+            pstmt.setInt(i, query.offset());
+            return readList(pstmt);
+        }
+    }
+
+    @Override
+    public int count(ExpenseQuery query) throws SQLException {
+        int bucket = categoryBucket(query.categoryCount());
+        String sql = QUERY_SHAPES.computeIfAbsent(-1 - bucket, key -> "SELECT COUNT(*) FROM expenses e\n" + whereSql(bucket));
+
+        try (Connection conn = DatabaseConnection.connect();
+             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+
+            bindFilters(pstmt, query, bucket);
+            ResultSet rs = pstmt.executeQuery();
+            return rs.next() ? rs.getInt(1) : 0;
+        }
+    }
+
+    // 0, 1, 2, 4, 8... placeholders for n category ids
+    private static int categoryBucket(int n) {
+        return n <= 1 ? n : Integer.highestOneBit(n - 1) << 1;
+    }
+
+    private static int shapeKey(int bucket, ExpenseQuery.Sort sort, boolean descending) {
+        return (bucket * ExpenseQuery.Sort.values().length + sort.ordinal()) * 2 + (descending ? 1 : 0);
+    }
+
+    private static String querySql(int bucket, ExpenseQuery.Sort sort, boolean descending) {
+        String column = switch (sort) {
+            case DATE -> "e.expense_date";
+            case AMOUNT -> "e.amount";
+            case CATEGORY -> "c.category_name";
+            case DESCRIPTION -> "e.description";
+        };
+        String direction = descending ? " DESC" : " ASC";
+        return "SELECT e.*\nFROM expenses e\n"
+                + (sort == ExpenseQuery.Sort.CATEGORY ? "JOIN categories c ON c.category_id = e.category_id\n" : "")
+                + whereSql(bucket)
+                + "ORDER BY " + column + direction + ", e.expense_id" + direction + "\n"
+                + "LIMIT ? OFFSET ?";
+    }
+
+    // Bare expense_date range, so idx_expenses_user_date / idx_expenses_user_cat_date still apply
+    private static String whereSql(int bucket) {
+        StringBuilder sql = new StringBuilder("WHERE e.user_id = ?\n");
+        if (bucket > 0) {
+            sql.append("  AND e.category_id IN (").append("?, ".repeat(bucket - 1)).append("?)\n");
+        }
+        return sql.append("  AND e.expense_date >= ? AND e.expense_date <= ?\n")
+                .append("  AND e.amount >= ? AND e.amount <= ?\n")
+                .toString();
+    }
+
+    // Binds everything up to the ORDER BY; returns the next parameter index
+    private static int bindFilters(PreparedStatement pstmt, ExpenseQuery query, int bucket) throws SQLException {
+        int i = 1;
+        pstmt.setInt(i++, query.userId());
+        for (int c = 0; c < bucket; c++) {
+            pstmt.setInt(i++, query.categoryId(Math.min(c, query.categoryCount() - 1)));
+        }
+        pstmt.setDate(i++, query.from() == null ? MIN_DATE : java.sql.Date.valueOf(query.from()));
+        pstmt.setDate(i++, query.to() == null ? MAX_DATE : java.sql.Date.valueOf(query.to().minusDays(1)));
+        pstmt.setBigDecimal(i++, java.math.BigDecimal.valueOf(Math.max(query.minCents(), -AMOUNT_BOUND_CENTS), 2));
+        pstmt.setBigDecimal(i++, java.math.BigDecimal.valueOf(Math.min(query.maxCents(), AMOUNT_BOUND_CENTS), 2));
+        return i;
+    }
+
+    private static List<Expense> readList(PreparedStatement pstmt) throws SQLException {
+        List<Expense> expenseList = new ArrayList<>();
+        ResultSet rs = pstmt.executeQuery();
+        while (rs.next()) {
+            Expense exp = new Expense();
+            mapRow(rs, exp);
+            expenseList.add(exp);
+        }
+        return expenseList;
+    }
+
+    // ---------------- ROLLUP AGGREGATES ----------------
+
+    @Override
+    public Map<Integer, Double> totalsByCategory(int userId) throws SQLException {
+        Map<Integer, Double> categoryTotals = new LinkedHashMap<>();
+        String sql = """
+            SELECT category_id, SUM(total) AS total
+            FROM expense_rollup
+            WHERE user_id = ? AND expense_count > 0
+            GROUP BY category_id
+        """;
+
+        try (Connection conn = DatabaseConnection.connect();
+             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+
+            pstmt.setInt(1, userId);
+            ResultSet rs = pstmt.executeQuery();
+
+            while (rs.next()) {
+                categoryTotals.put(rs.getInt("category_id"), rs.getDouble("total"));
+            }
+        }
+        return categoryTotals;
+    }
+
+    @Override
+    public double totalForMonths(int userId, int fromYm, int toYm) throws SQLException {
+        String sql = "SELECT SUM(total) AS total FROM expense_rollup WHERE user_id = ? AND ym >= ? AND ym <= ?";
+        try (Connection conn = DatabaseConnection.connect();
+             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+
+            pstmt.setInt(1, userId);
+            pstmt.setInt(2, fromYm);
+            pstmt.setInt(3, toYm);
+
+            ResultSet rs = pstmt.executeQuery();
+            return rs.next() ? rs.getDouble("total") : 0.0;
+        }
+    }
+
+    @Override
+    public Map<Integer, Double> totalsByMonth(int userId, int fromYm, int toYm) throws SQLException {
+        Map<Integer, Double> totals = new LinkedHashMap<>();
+        String sql = """
+            SELECT ym, SUM(total) AS total
+            FROM expense_rollup
+            WHERE user_id = ? AND ym >= ? AND ym <= ?
+            GROUP BY ym
+        """;
+
+        try (Connection conn = DatabaseConnection.connect();
+             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+
+            pstmt.setInt(1, userId);
+            pstmt.setInt(2, fromYm);
+            pstmt.setInt(3, toYm);
+
+            ResultSet rs = pstmt.executeQuery();
+            while (rs.next()) {
+                totals.put(rs.getInt("ym"), rs.getDouble("total"));
+            }
+        }
+        return totals;
+    }
+
+    // Arbitrary date ranges can't use the monthly rollup, so these sum the rows
+    // (range scan on idx_expenses_user_date / idx_expenses_user_cat_date)
+    @Override
+    public double totalInRange(int userId, int categoryId, LocalDate from, LocalDate to) throws SQLException {
+        String sql = categoryId == 0
+                ? "SELECT SUM(amount) AS total FROM expenses WHERE user_id = ? AND expense_date >= ? AND expense_date < ?"
+                : """
+                    SELECT SUM(amount) AS total FROM expenses
+                    WHERE user_id = ? AND category_id = ? AND expense_date >= ? AND expense_date < ?
+                """;
+        try (Connection conn = DatabaseConnection.connect();
+             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+
+            int i = 1;
+            pstmt.setInt(i++, userId);
+            if (categoryId != 0) pstmt.setInt(i++, categoryId);
+            pstmt.setDate(i++, java.sql.Date.valueOf(from));
+            pstmt.setDate(i, java.sql.Date.valueOf(to));
+
+            ResultSet rs = pstmt.executeQuery();
+            return rs.next() ? rs.getDouble("total") : 0.0;
+        }
+    }
+}
@@ -0,0 +1,65 @@
+import java.sql.*;
+
+/** MySQL-backed users table (the default backend). */
+public class JdbcUserRepository implements UserRepository {
+
+    @Override
+    public boolean insert(User user, String passwordHash) throws SQLException {
+        String sql = "INSERT INTO users (username, email, password, full_name) VALUES (?, ?, ?, ?)";
+        try (Connection conn = DatabaseConnection.connect();
+             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+
+            pstmt.setString(1, user.getUsername());
+            pstmt.setString(2, user.getEmail());
+            pstmt.setString(3, passwordHash);
+            pstmt.setString(4, user.getFullName());
+            return pstmt.executeUpdate() > 0;
+        }
+    }
+
+    @Override
+    public Account findByUsername(String username) throws SQLException {
+        String sql = "SELECT * FROM users WHERE username = ?";
+        try (Connection conn = DatabaseConnection.connect();
+             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+
+            pstmt.setString(1, username);
+            ResultSet rs = pstmt.executeQuery();
+            return rs.next() ? new Account(mapUser(rs), rs.getString("password")) : null;
+        }
+    }
+
+    @Override
+    public User findById(int userId) throws SQLException {
+        String sql = "SELECT * FROM users WHERE user_id = ?";
+        try (Connection conn = DatabaseConnection.connect();
+             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+
+            pstmt.setInt(1, userId);
+            ResultSet rs = pstmt.executeQuery();
+            return rs.next() ? mapUser(rs) : null;
+        }
+    }
+
+    @Override
+    public boolean updatePasswordHash(int userId, String expectedHash, String newHash) throws SQLException {
+        String sql = "UPDATE users SET password = ? WHERE user_id = ? AND password = ?";
+        try (Connection conn = DatabaseConnection.connect();
+             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+
+            pstmt.setString(1, newHash);
+            pstmt.setInt(2, userId);
+            pstmt.setString(3, expectedHash);
+            return pstmt.executeUpdate() > 0;
+        }
+    }
+
+    private static User mapUser(ResultSet rs) throws SQLException {
+        User user = new User();
+        user.setUserId(rs.getInt("user_id"));
+        user.setUsername(rs.getString("username"));
+        user.setEmail(rs.getString("email"));
+        user.setFullName(rs.getString("full_name"));
+        return user;
+    }
+}
@@ -0,0 +1,257 @@
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.LocalDate;
+
+/**
+ * Minimal streaming JSON encoder.
+ *
+ * Writes UTF-8 straight into a fixed byte buffer that is flushed to the
+ * underlying stream when full, so a response of any size needs no more
+ * memory than the buffer. Commas between members are inserted automatically.
+ */
+public class JsonWriter {
+
+    private static final byte[] HEX = "0123456789abcdef".getBytes();
+    private static final int MAX_DEPTH = 32;
+
+    private final byte[] buf;
+    private int pos;
+    private OutputStream out;
+
+    // first[d] is true until something has been written at nesting depth d
+    private final boolean[] first = new boolean[MAX_DEPTH];
+    private int depth;
+    private boolean afterName;
+
+    public JsonWriter(OutputStream out) {
+        this(out, 8192);
+    }
+
+    public JsonWriter(OutputStream out, int bufferSize) {
+        this.out = out;
+        this.buf = new byte[bufferSize];
+        first[0] = true;
+    }
+
+    // Point the writer at a new stream so the buffer can be reused
+    public JsonWriter reset(OutputStream out) {
+        this.out = out;
+        pos = 0;
+        depth = 0;
+        first[0] = true;
+        afterName = false;
+        return this;
+    }
+
+    public JsonWriter beginArray() throws IOException {
+        return open('[');
+    }
+
+    public JsonWriter endArray() throws IOException {
+        return close(']');
+    }
+
+    public JsonWriter beginObject() throws IOException {
+        return open('{');
+    }
+
+    public JsonWriter endObject() throws IOException {
+        return close('}');
+    }
+
+    public JsonWriter name(String name) throws IOException {
+        separator();
+        writeString(name);
+        writeByte(':');
+        afterName = true;
+        return this;
+    }
+
+    public JsonWriter value(String value) throws IOException {
+        separator();
+        if (value == null) {
+            writeAscii("null");
+        } else {
+            writeString(value);
+        }
+        return this;
+    }
+
+    public JsonWriter value(long value) throws IOException {
+        separator();
+        writeLong(value);
+        return this;
+    }
+
+    public JsonWriter value(boolean value) throws IOException {
+        separator();
+        writeAscii(value ? "true" : "false");
+        return this;
+    }
+
+    // Money amounts are always written with exactly two decimals, e.g. 12.50
+    public JsonWriter valueMoney(double amount) throws IOException {
+        separator();
+        long cents = Math.round(amount * 100);
+        if (cents < 0) {
+            writeByte('-');
+            cents = -cents;
+        }
+        writeLong(cents / 100);
+        writeByte('.');
+        int frac = (int) (cents % 100);
+        writeByte('0' + frac / 10);
+        writeByte('0' + frac % 10);
+        return this;
+    }
+
+    // ISO date (yyyy-MM-dd) as a JSON string
+    public JsonWriter value(LocalDate date) throws IOException {
+        separator();
+        if (date == null) {
+            writeAscii("null");
+            return this;
+        }
+        writeByte('"');
+        writePadded(date.getYear(), 4);
+        writeByte('-');
+        writePadded(date.getMonthValue(), 2);
+        writeByte('-');
+        writePadded(date.getDayOfMonth(), 2);
+        writeByte('"');
+        return this;
+    }
+
+    public JsonWriter nullValue() throws IOException {
+        separator();
+        writeAscii("null");
+        return this;
+    }
+
+    // End a top-level value with a newline (NDJSON): the next value starts a fresh record, no comma
+    public JsonWriter endLine() throws IOException {
+        writeByte('\n');
+        first[0] = true;
+        return this;
+    }
+
+    public void flush() throws IOException {
+        if (pos > 0) {
+            out.write(buf, 0, pos);
+            pos = 0;
+        }
+        out.flush();
+    }
+
+    // ---------------- INTERNALS ----------------
+
+    private JsonWriter open(char c) throws IOException {
+        separator();
+        writeByte(c);
+        if (++depth >= MAX_DEPTH) throw new IOException("JSON nested too deeply");
+        first[depth] = true;
+        return this;
+    }
+
+    private JsonWriter close(char c) throws IOException {
+        depth--;
+        writeByte(c);
+        return this;
+    }
+
+    private void separator() throws IOException {
+        if (afterName) {
+            afterName = false;
+            return;
+        }
+        if (first[depth]) {
+            first[depth] = false;
+        } else {
+            writeByte(',');
+        }
+    }
+
+    private void writeString(String s) throws IOException {
+        writeByte('"');
+        for (int i = 0, n = s.length(); i < n; i++) {
+            char c = s.charAt(i);
+            if (c < 0x80) {
+                switch (c) {
+                    case '"' -> { writeByte('\\'); writeByte('"'); }
+                    case '\\' -> { writeByte('\\'); writeByte('\\'); }
+                    case '\n' -> { writeByte('\\'); writeByte('n'); }
+                    case '\r' -> { writeByte('\\'); writeByte('r'); }
+                    case '\t' -> { writeByte('\\'); writeByte('t'); }
+                    default -> {
+                        if (c < 0x20) {
+                            writeAscii("\\u00");
+                            writeByte(HEX[c >> 4]);
+                            writeByte(HEX[c & 0xF]);
+                        } else {
+                            writeByte(c);
+                        }
+                    }
+                }
+            } else if (c < 0x800) {
+                writeByte(0xC0 | (c >> 6));
+                writeByte(0x80 | (c & 0x3F));
+            } else if (Character.isHighSurrogate(c) && i + 1 < n && Character.isLowSurrogate(s.charAt(i + 1))) {
+                int cp = Character.toCodePoint(c, s.charAt(++i));
+                writeByte(0xF0 | (cp >> 18));
+                writeByte(0x80 | ((cp >> 12) & 0x3F));
+                writeByte(0x80 | ((cp >> 6) & 0x3F));
+                writeByte(0x80 | (cp & 0x3F));
+            } else if (Character.isSurrogate(c)) {
+                writeAscii("\\ufffd"); // unpaired surrogate
+            } else {
+                writeByte(0xE0 | (c >> 12));
+                writeByte(0x80 | ((c >> 6) & 0x3F));
+                writeByte(0x80 | (c & 0x3F));
+            }
+        }
+        writeByte('"');
+    }
+
+    private void writeLong(long v) throws IOException {
+        if (v == Long.MIN_VALUE) {
+            writeAscii("-9223372036854775808");
+            return;
+        }
+        if (v < 0) {
+            writeByte('-');
+            v = -v;
+        }
+        if (pos + 20 > buf.length) flushBuffer();
+        int start = pos;
+        do {
+            buf[pos++] = (byte) ('0' + (v % 10));
+            v /= 10;
+        } while (v > 0);
+        // digits were produced in reverse order
+        for (int i = start, j = pos - 1; i < j; i++, j--) {
+            byte t = buf[i];
+            buf[i] = buf[j];
+            buf[j] = t;
+        }
+    }
+
+    private void writePadded(int v, int width) throws IOException {
+        for (int div = (int) Math.pow(10, width - 1); div > 0; div /= 10) {
+            writeByte('0' + (v / div) % 10);
+        }
+    }
+
+    private void writeAscii(String s) throws IOException {
+        for (int i = 0; i < s.length(); i++) writeByte(s.charAt(i));
+    }
+
+    private void writeByte(int b) throws IOException {
+        if (pos == buf.length) flushBuffer();
+        buf[pos++] = (byte) b;
+    }
+
+    private void flushBuffer() throws IOException {
+        out.write(buf, 0, pos);
+        pos = 0;
+    }
+}
@@ -0,0 +1,205 @@
+import javafx.application.Platform;
+import javafx.beans.property.ReadOnlyIntegerProperty;
+import javafx.beans.property.ReadOnlyIntegerWrapper;
+import javafx.beans.property.ReadOnlyObjectWrapper;
+import javafx.collections.ObservableListBase;
+import javafx.geometry.Pos;
+import javafx.scene.control.Label;
+import javafx.scene.control.TableCell;
+import javafx.scene.control.TableColumn;
+import javafx.scene.control.TableView;
+
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Function;
+
+/**
+ * Expense ledger for the desktop app that stays responsive at any size.
+ *
+ * TableView only makes cells for the rows on screen. The rows behind them
+ * are fetched through ExpenseQuery one page at a time, on a background
+ * thread, the first time a row of that page is drawn; until it arrives the
+ * row is blank. Loaded pages sit in a small LRU cache (ledger.cachePages
+ * pages of ledger.pageSize rows), so memory stays flat however far the
+ * user scrolls. Clicking a column header sorts in storage and starts over.
+ */
+public class LedgerTable extends TableView<Expense> {
+
+    private static final int PAGE_SIZE = Integer.getInteger("ledger.pageSize", 200);
+    private static final int CACHE_PAGES = Integer.getInteger("ledger.cachePages", 16);
+    // A queued page this many pages away from the last one drawn has been scrolled past; skip it
+    private static final int SKIP_DISTANCE = 2;
+
+    private final int userId;
+    private final ExecutorService loader = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "ledger-loader");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final ReadOnlyIntegerWrapper total = new ReadOnlyIntegerWrapper(this, "total", -1);
+    private final Label placeholder = new Label("⏳ Loading...");
+
+    private final Rows rows = new Rows();
+    private volatile Result latest; // newest reload; older results stop loading pages
+
+    public LedgerTable(int userId) {
+        this.userId = userId;
+
+        TableColumn<Expense, LocalDate> date = column("Date", ExpenseQuery.Sort.DATE, Expense::getExpenseDate, 110);
+        column("Category", ExpenseQuery.Sort.CATEGORY, Expense::getCategoryName, 130);
+        TableColumn<Expense, Double> amount = column("Amount", ExpenseQuery.Sort.AMOUNT, Expense::getAmount, 100);
+        column("Description", ExpenseQuery.Sort.DESCRIPTION, Expense::getDescription, 260);
+
+        amount.setCellFactory(col -> new TableCell<>() {
+            @Override
+            protected void updateItem(Double value, boolean empty) {
+                super.updateItem(value, empty);
+                setText(empty || value == null ? null : String.format("%.2f", value));
+            }
+        });
+        amount.setStyle("-fx-alignment: CENTER-RIGHT;");
+
+        date.setSortType(TableColumn.SortType.DESCENDING);
+        getSortOrder().add(date);
+        setSortPolicy(table -> {
+            reload();
+            return true;
+        });
+
+        placeholder.setAlignment(Pos.CENTER);
+        setPlaceholder(placeholder);
+        setFixedCellSize(24); // every row the same height, so the scrollbar needs no measuring
+        setColumnResizePolicy(CONSTRAINED_RESIZE_POLICY_FLEX_LAST_COLUMN);
+        setItems(rows); // once: TableView drops its sort order whenever the items list is replaced
+        reload();
+    }
+
+    // Rows matching the current sort, or -1 while counting (or if counting failed)
+    public ReadOnlyIntegerProperty totalProperty() {
+        return total.getReadOnlyProperty();
+    }
+
+    // ✅ Forget every loaded page and read the ledger again with the current sort (after a sort click or a write).
+    // The old rows stay on screen until the new count is in.
+    public void reload() {
+        Result next = new Result(currentQuery());
+        latest = next;
+        loader.execute(() -> {
+            if (latest != next) return; // superseded before it started
+            int count = ExpenseManager.countExpenses(next.query);
+            Platform.runLater(() -> {
+                if (latest != next) return;
+                next.size = Math.max(count, 0);
+                placeholder.setText(count < 0 ? "❌ Could not load expenses" : "No expenses found.");
+                rows.show(next);
+                total.set(count);
+            });
+        });
+    }
+
+    // Stop the loader thread; call when the window closes
+    public void shutdown() {
+        loader.shutdownNow();
+    }
+
+    // First column of the sort order decides; no sort at all means newest first
+    private ExpenseQuery currentQuery() {
+        ExpenseQuery.Builder query = ExpenseQuery.forUser(userId).limit(PAGE_SIZE);
+        if (!getSortOrder().isEmpty()) {
+            TableColumn<Expense, ?> column = getSortOrder().get(0);
+            query.sortBy((ExpenseQuery.Sort) column.getUserData(), column.getSortType() == TableColumn.SortType.DESCENDING);
+        }
+        return query.build();
+    }
+
+    private <T> TableColumn<Expense, T> column(String title, ExpenseQuery.Sort sort, Function<Expense, T> value, double width) {
+        TableColumn<Expense, T> column = new TableColumn<>(title);
+        column.setUserData(sort);
+        column.setPrefWidth(width);
+        // null row = page not loaded yet
+        column.setCellValueFactory(cell -> new ReadOnlyObjectWrapper<>(
+                cell.getValue() == null ? null : value.apply(cell.getValue())));
+        getColumns().add(column);
+        return column;
+    }
+
+    // One query's row count and loaded pages
+    private static final class Result {
+        final ExpenseQuery query;
+        int size;
+        final Map<Integer, List<Expense>> pages = new LinkedHashMap<>(CACHE_PAGES * 2, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Integer, List<Expense>> eldest) {
+                return size() > CACHE_PAGES;
+            }
+        };
+        final Set<Integer> loading = new HashSet<>();
+        volatile int lastMissedPage; // read by the loader thread
+
+        Result(ExpenseQuery query) {
+            this.query = query;
+        }
+    }
+
+    // The table's items: a fixed-size view of the shown Result, only touched on the FX thread
+    private final class Rows extends ObservableListBase<Expense> {
+        private Result shown;
+
+        void show(Result next) {
+            int oldSize = size();
+            shown = next;
+            beginChange();
+            if (oldSize > 0) nextRemove(0, Collections.nCopies(oldSize, (Expense) null));
+            if (next.size > 0) nextAdd(0, next.size);
+            endChange();
+        }
+
+        @Override
+        public int size() {
+            return shown == null ? 0 : shown.size;
+        }
+
+        @Override
+        public Expense get(int index) {
+            Result result = shown;
+            if (result == null || index < 0 || index >= result.size) throw new IndexOutOfBoundsException(index);
+            int page = index / PAGE_SIZE;
+            List<Expense> loaded = result.pages.get(page);
+            if (loaded != null) {
+                int offset = index % PAGE_SIZE;
+                return offset < loaded.size() ? loaded.get(offset) : null; // rows deleted since counting
+            }
+            result.lastMissedPage = page;
+            if (result.loading.add(page)) loader.execute(() -> load(result, page));
+            return null;
+        }
+
+        // Loader thread
+        private void load(Result result, int page) {
+            if (latest != result || Math.abs(page - result.lastMissedPage) > SKIP_DISTANCE) {
+                Platform.runLater(() -> result.loading.remove(page)); // drawn again later = requested again
+                return;
+            }
+            List<Expense> loaded;
+            try {
+                loaded = ExpenseManager.queryExpenses(result.query.window(page * PAGE_SIZE, PAGE_SIZE));
+            } catch (SQLException e) {
+                Platform.runLater(() -> result.loading.remove(page)); // rows stay blank; drawn again = tried again
+                return;
+            }
+            Platform.runLater(() -> {
+                result.loading.remove(page);
+                result.pages.put(page, loaded);
+                if (shown != result) return;
+                int from = page * PAGE_SIZE, to = Math.min(result.size, from + PAGE_SIZE);
+                if (from >= to) return;
+                beginChange();
+                for (int i = from; i < to; i++) nextUpdate(i); // cells on screen re-read their rows
+                endChange();
+            });
+        }
+    }
+}
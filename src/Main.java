@@ -91,8 +91,10 @@ public class Main {
         System.out.println("3️⃣  View Expense by Category");
         System.out.println("4️⃣  View Monthly Total");
         System.out.println("5️⃣  Delete an Expense");
-        System.out.println("6️⃣  Logout");
-        System.out.println("7️⃣  Exit");
+        System.out.println("6️⃣  Import Expenses from CSV");
+        System.out.println("7️⃣  Export Expenses to a File");
+        System.out.println("8️⃣  Logout");
+        System.out.println("9️⃣  Exit");
         System.out.print("Choose an option: ");
 
         int choice = scanner.nextInt();
@@ -104,8 +106,10 @@ public class Main {
             case 3 -> viewExpensesByCategory();
             case 4 -> viewMonthlyTotal();
             case 5 -> deleteExpense();
-            case 6 -> logout();
-            case 7 -> exitApp();
+            case 6 -> importCsv();
+            case 7 -> exportExpenses();
+            case 8 -> logout();
+            case 9 -> exitApp();
             default -> System.out.println("❌ Invalid choice. Try again!");
         }
     }
@@ -114,7 +118,11 @@ public class Main {
     private static void addExpense() {
         System.out.println("\n--- Add Expense ---");
 
-        System.out.print("Enter category ID (1=Food, 2=Travel, 3=Shopping, 4=Bills, 5=Entertainment): ");
+        StringJoiner options = new StringJoiner(", ", "(", ")");
+        for (Category category : CategoryManager.getCategories()) {
+            options.add(category.getCategoryId() + "=" + category.getCategoryName());
+        }
+        System.out.print("Enter category ID " + options + ": ");
         int categoryId = scanner.nextInt();
         scanner.nextLine();
 
@@ -191,7 +199,73 @@ public class Main {
         }
     }
 
-    // Step 10: Logout / Exit
+    // Step 10: Bulk import from a bank-statement CSV (same engine as the headless CsvImporter)
+    private static void importCsv() {
+        System.out.println("\n--- Import Expenses from CSV ---");
+        System.out.println("Columns: date, amount, category, description (header row required)");
+        System.out.print("Enter CSV file path: ");
+        String path = scanner.nextLine().trim();
+
+        System.out.print("Create categories that don't exist yet? (y/n): ");
+        boolean create = scanner.nextLine().trim().equalsIgnoreCase("y");
+
+        CsvImporter.Options defaults = CsvImporter.Options.defaults();
+        CsvImporter.Options options = new CsvImporter.Options(defaults.batchSize(), null, create, false,
+                defaults.debitSign());
+        try {
+            CsvImporter.Summary summary = CsvImporter.importFile(java.nio.file.Path.of(path), currentUser.getUserId(), options);
+            if (!summary.completed()) {
+                System.out.println("⚠️ Import stopped early; choose this option again with the same file to resume.");
+            }
+        } catch (java.io.IOException | IllegalArgumentException e) {
+            System.out.println("❌ Import failed: " + e.getMessage());
+        }
+    }
+
+    // Step 11: Export to CSV/NDJSON, streamed row by row; a .gz file name compresses it
+    private static void exportExpenses() {
+        System.out.println("\n--- Export Expenses ---");
+        System.out.print("Format (csv/ndjson) [csv]: ");
+        String formatName = scanner.nextLine().trim();
+        System.out.print("From date (yyyy-MM-dd, blank = all): ");
+        String fromText = scanner.nextLine().trim();
+        System.out.print("To date (yyyy-MM-dd, blank = all): ");
+        String toText = scanner.nextLine().trim();
+
+        ExpenseExport.Format format;
+        LocalDate from, to;
+        try {
+            format = ExpenseExport.Format.parse(formatName);
+            from = fromText.isEmpty() ? null : LocalDate.parse(fromText);
+            to = toText.isEmpty() ? null : LocalDate.parse(toText);
+        } catch (IllegalArgumentException | java.time.DateTimeException e) {
+            System.out.println("❌ " + e.getMessage());
+            return;
+        }
+
+        String defaultName = ExpenseExport.fileName(from, to, format);
+        System.out.print("Output file [" + defaultName + "]: ");
+        String path = scanner.nextLine().trim();
+        if (path.isEmpty()) path = defaultName;
+
+        long start = System.nanoTime();
+        long rows;
+        try (java.io.OutputStream file = new java.io.BufferedOutputStream(
+                java.nio.file.Files.newOutputStream(java.nio.file.Path.of(path)), 64 * 1024);
+             java.io.OutputStream out = path.endsWith(".gz") ? new java.util.zip.GZIPOutputStream(file, 64 * 1024) : file) {
+            rows = ExpenseExport.write(currentUser.getUserId(), from, to, format, out);
+        } catch (java.io.IOException | IllegalArgumentException e) {
+            System.out.println("❌ Export failed: " + e.getMessage());
+            return;
+        }
+        if (rows < 0) {
+            System.out.println("❌ Export failed part-way; " + path + " is incomplete.");
+        } else {
+            System.out.printf("✅ Exported %,d expenses to %s in %.1f s%n", rows, path, (System.nanoTime() - start) / 1e9);
+        }
+    }
+
+    // Step 12: Logout / Exit
     private static void logout() {
         System.out.println("👋 Logged out successfully!");
         currentUser = null;
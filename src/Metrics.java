@@ -0,0 +1,200 @@
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryUsage;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Process-wide latency histograms and counters, exported for Prometheus by /metrics.
+ *
+ * Histograms are created once (at class init or route registration) and kept
+ * in static fields, so recording is a few atomic increments with no
+ * allocation. Buckets are log-linear (four per power of two, about 19%
+ * wide), so p50/p99 come out within one bucket of the true value.
+ */
+public class Metrics {
+
+    public static final class Histogram {
+        private static final int SUB_BUCKETS = 4; // per power of two
+        private static final int OCTAVES = 42;    // 2^42 ns is over an hour
+
+        private final AtomicLongArray buckets = new AtomicLongArray(OCTAVES * SUB_BUCKETS);
+        private final AtomicLong count = new AtomicLong();
+        private final AtomicLong sumNanos = new AtomicLong();
+        private final AtomicLong maxNanos = new AtomicLong();
+
+        public void record(long nanos) {
+            if (nanos < 0) nanos = 0;
+            buckets.incrementAndGet(bucket(nanos));
+            count.incrementAndGet();
+            sumNanos.addAndGet(nanos);
+            long max = maxNanos.get();
+            while (nanos > max && !maxNanos.compareAndSet(max, nanos)) {
+                max = maxNanos.get();
+            }
+        }
+
+        // Record the time since startNanos (a System.nanoTime() value)
+        public void recordSince(long startNanos) {
+            record(System.nanoTime() - startNanos);
+        }
+
+        public long count() { return count.get(); }
+        public long sumNanos() { return sumNanos.get(); }
+        public long maxNanos() { return maxNanos.get(); }
+
+        // Approximate quantile (0..1) in nanoseconds: the midpoint of the bucket holding it
+        public long quantileNanos(double q) {
+            long total = 0;
+            for (int i = 0; i < buckets.length(); i++) total += buckets.get(i);
+            if (total == 0) return 0;
+            long rank = (long) Math.ceil(q * total);
+            long seen = 0;
+            for (int i = 0; i < buckets.length(); i++) {
+                seen += buckets.get(i);
+                if (seen >= rank) return Math.min((lowerBound(i) + lowerBound(i + 1)) / 2, maxNanos.get());
+            }
+            return maxNanos.get();
+        }
+
+        private static int bucket(long nanos) {
+            if (nanos < SUB_BUCKETS) return (int) nanos;
+            int octave = 63 - Long.numberOfLeadingZeros(nanos);          // floor(log2)
+            int sub = (int) (nanos >>> (octave - 2)) & (SUB_BUCKETS - 1); // next two bits
+            return Math.min(octave * SUB_BUCKETS + sub - 4, OCTAVES * SUB_BUCKETS - 1);
+        }
+
+        private static long lowerBound(int index) {
+            if (index < SUB_BUCKETS) return index;
+            int octave = (index + 4) / SUB_BUCKETS;
+            int sub = (index + 4) % SUB_BUCKETS;
+            return (1L << octave) + ((long) sub << (octave - 2));
+        }
+    }
+
+    // Latency plus response counts by status class (index 1..5 = 1xx..5xx)
+    public static final class Route {
+        final Histogram latency = new Histogram();
+        final AtomicLongArray statuses = new AtomicLongArray(6);
+
+        public void record(long startNanos, int status) {
+            latency.recordSince(startNanos);
+            statuses.incrementAndGet(status >= 100 && status < 600 ? status / 100 : 0);
+        }
+    }
+
+    private record Family(String help, String label, Map<String, Histogram> series) {}
+
+    private static final Map<String, Family> FAMILIES = new ConcurrentSkipListMap<>();
+    private static final Map<String, Route> ROUTES = new ConcurrentSkipListMap<>();
+
+    // ---------------- SHARED HISTOGRAMS ----------------
+
+    public static final Histogram DB_ACQUIRE = histogram("db_connection_acquire_seconds",
+            "Time to borrow a pooled JDBC connection", "pool", "main");
+
+    // ✅ Get or create a histogram; call once and keep the result, not on every request
+    public static Histogram histogram(String name, String help, String label, String value) {
+        Family family = FAMILIES.computeIfAbsent(name, n -> new Family(help, label, new ConcurrentSkipListMap<>()));
+        return family.series().computeIfAbsent(value, v -> new Histogram());
+    }
+
+    // Timer for one storage query, labelled query="<name>"
+    public static Histogram query(String name) {
+        return histogram("storage_query_seconds", "Time spent in one storage query", "query", name);
+    }
+
+    public static Route route(String path) {
+        return ROUTES.computeIfAbsent(path, p -> new Route());
+    }
+
+    // ---------------- EXPORT ----------------
+
+    // ✅ Everything in the Prometheus text format (version 0.0.4)
+    public static String scrape() {
+        StringBuilder out = new StringBuilder(8 * 1024);
+
+        header(out, "http_request_duration_seconds", "summary", "HTTP request latency by route");
+        ROUTES.forEach((path, r) -> summary(out, "http_request_duration_seconds", "route", path, r.latency));
+        header(out, "http_request_duration_seconds_max", "gauge", "Slowest HTTP request by route");
+        ROUTES.forEach((path, r) -> sample(out, "http_request_duration_seconds_max", "route", path, seconds(r.latency.maxNanos())));
+        header(out, "http_requests_total", "counter", "HTTP responses by route and status class");
+        ROUTES.forEach((path, r) -> {
+            for (int c = 1; c <= 5; c++) {
+                out.append("http_requests_total{route=\"").append(escape(path)).append("\",status=\"")
+                        .append(c).append("xx\"} ").append(r.statuses.get(c)).append('\n');
+            }
+        });
+
+        FAMILIES.forEach((name, family) -> {
+            header(out, name, "summary", family.help());
+            family.series().forEach((value, h) -> summary(out, name, family.label(), value, h));
+            header(out, name + "_max", "gauge", family.help() + " (max)");
+            family.series().forEach((value, h) -> sample(out, name + "_max", family.label(), value, seconds(h.maxNanos())));
+        });
+
+        jvm(out);
+        return out.toString();
+    }
+
+    // Current value of a gauge owned elsewhere (pool, caches, sessions)
+    public static void gauge(StringBuilder out, String name, String help, double value) {
+        header(out, name, "gauge", help);
+        out.append(name).append(' ').append(format(value)).append('\n');
+    }
+
+    // Same for a monotonic count kept elsewhere
+    public static void counter(StringBuilder out, String name, String help, long value) {
+        header(out, name, "counter", help);
+        out.append(name).append(' ').append(value).append('\n');
+    }
+
+    private static void jvm(StringBuilder out) {
+        MemoryUsage heap = ManagementFactory.getMemoryMXBean().getHeapMemoryUsage();
+        gauge(out, "jvm_heap_used_bytes", "Heap in use", heap.getUsed());
+        gauge(out, "jvm_heap_committed_bytes", "Heap committed by the JVM", heap.getCommitted());
+        gauge(out, "jvm_heap_max_bytes", "Maximum heap size", heap.getMax());
+        gauge(out, "jvm_threads_live", "Live platform threads", ManagementFactory.getThreadMXBean().getThreadCount());
+
+        header(out, "jvm_gc_collections_total", "counter", "GC runs by collector");
+        for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+            sample(out, "jvm_gc_collections_total", "gc", gc.getName(), gc.getCollectionCount());
+        }
+        header(out, "jvm_gc_collection_seconds_total", "counter", "Time spent in GC by collector");
+        for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+            sample(out, "jvm_gc_collection_seconds_total", "gc", gc.getName(), gc.getCollectionTime() / 1000.0);
+        }
+    }
+
+    private static void summary(StringBuilder out, String name, String label, String value, Histogram h) {
+        String labels = label + "=\"" + escape(value) + "\"";
+        out.append(name).append('{').append(labels).append(",quantile=\"0.5\"} ").append(format(seconds(h.quantileNanos(0.5)))).append('\n');
+        out.append(name).append('{').append(labels).append(",quantile=\"0.99\"} ").append(format(seconds(h.quantileNanos(0.99)))).append('\n');
+        out.append(name).append("_sum{").append(labels).append("} ").append(format(seconds(h.sumNanos()))).append('\n');
+        out.append(name).append("_count{").append(labels).append("} ").append(h.count()).append('\n');
+    }
+
+    private static void sample(StringBuilder out, String name, String label, String value, double v) {
+        out.append(name).append('{').append(label).append("=\"").append(escape(value)).append("\"} ")
+                .append(format(v)).append('\n');
+    }
+
+    private static void header(StringBuilder out, String name, String type, String help) {
+        out.append("# HELP ").append(name).append(' ').append(help).append('\n');
+        out.append("# TYPE ").append(name).append(' ').append(type).append('\n');
+    }
+
+    private static double seconds(long nanos) {
+        return nanos / 1e9;
+    }
+
+    private static String format(double v) {
+        return v == Math.rint(v) && Math.abs(v) < 1e15 ? Long.toString((long) v) : Double.toString(v);
+    }
+
+    private static String escape(String value) {
+        return value.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
+    }
+}
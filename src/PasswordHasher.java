@@ -0,0 +1,123 @@
+import javax.crypto.SecretKeyFactory;
+import javax.crypto.spec.PBEKeySpec;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.concurrent.*;
+
+/**
+ * Salted PBKDF2 password hashing on its own bounded thread pool.
+ *
+ * Hashing is deliberately slow, so it never runs on the caller's thread: work
+ * is queued to a small fixed pool and, when that queue is full, rejected right
+ * away with {@link OverloadedException} instead of piling up.
+ *
+ * Stored format: pbkdf2$<iterations>$<base64 salt>$<base64 hash>
+ */
+public class PasswordHasher {
+
+    private static final String ALGORITHM = "PBKDF2WithHmacSHA256";
+    private static final String PREFIX = "pbkdf2$";
+    private static final int SALT_BYTES = 16;
+    private static final int HASH_BITS = 256;
+    private static final long TIMEOUT_SECONDS = 30;
+
+    private static final SecureRandom RANDOM = new SecureRandom();
+
+    /** Thrown when the hash queue is saturated; callers should answer "busy" rather than wait. */
+    public static class OverloadedException extends RuntimeException {
+        public OverloadedException(String message) {
+            super(message);
+        }
+    }
+
+    public record Verification(boolean matches, boolean needsRehash) {}
+
+    private final int iterations;
+    private final ThreadPoolExecutor pool;
+
+    public PasswordHasher(int iterations, int threads, int queueSize) {
+        this.iterations = iterations;
+        this.pool = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueSize),
+                r -> {
+                    Thread t = new Thread(r, "password-hasher");
+                    t.setDaemon(true);
+                    return t;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    // ✅ Hash a new password with a fresh salt and the current work factor
+    public String hash(String password) {
+        return await(submit(() -> encode(password, iterations)));
+    }
+
+    // ✅ Check a password against a stored value; needsRehash is set when the stored cost is out of date
+    public Verification verify(String password, String stored) {
+        return await(submit(() -> {
+            if (stored == null) return new Verification(false, false);
+            if (!stored.startsWith(PREFIX)) {
+                // legacy plain-text row: accept once, then it gets rehashed
+                boolean matches = MessageDigest.isEqual(
+                        stored.getBytes(StandardCharsets.UTF_8), password.getBytes(StandardCharsets.UTF_8));
+                return new Verification(matches, matches);
+            }
+            String[] parts = stored.split("\\$");
+            int storedIterations = Integer.parseInt(parts[1]);
+            byte[] salt = Base64.getDecoder().decode(parts[2]);
+            byte[] expected = Base64.getDecoder().decode(parts[3]);
+            boolean matches = MessageDigest.isEqual(expected, derive(password, salt, storedIterations));
+            return new Verification(matches, matches && storedIterations != iterations);
+        }));
+    }
+
+    public int queued() {
+        return pool.getQueue().size();
+    }
+
+    public void shutdown() {
+        pool.shutdown();
+    }
+
+    private String encode(String password, int rounds) throws GeneralSecurityException {
+        byte[] salt = new byte[SALT_BYTES];
+        RANDOM.nextBytes(salt);
+        Base64.Encoder b64 = Base64.getEncoder().withoutPadding();
+        return PREFIX + rounds + "$" + b64.encodeToString(salt) + "$" + b64.encodeToString(derive(password, salt, rounds));
+    }
+
+    private static byte[] derive(String password, byte[] salt, int rounds) throws GeneralSecurityException {
+        PBEKeySpec spec = new PBEKeySpec(password.toCharArray(), salt, rounds, HASH_BITS);
+        try {
+            return SecretKeyFactory.getInstance(ALGORITHM).generateSecret(spec).getEncoded();
+        } finally {
+            spec.clearPassword();
+        }
+    }
+
+    // Load shedding: a full queue fails fast instead of making the caller wait
+    private <T> Future<T> submit(Callable<T> task) {
+        try {
+            return pool.submit(task);
+        } catch (RejectedExecutionException e) {
+            throw new OverloadedException("Too many logins in progress, try again shortly");
+        }
+    }
+
+    private static <T> T await(Future<T> future) {
+        try {
+            return future.get(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new OverloadedException("Interrupted while hashing");
+        } catch (TimeoutException e) {
+            future.cancel(true);
+            throw new OverloadedException("Password hashing timed out");
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Password hashing failed", e.getCause());
+        }
+    }
+}
@@ -0,0 +1,165 @@
+import com.sun.net.httpserver.Headers;
+import com.sun.net.httpserver.HttpExchange;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * HTTP response body that picks its own framing and encoding.
+ *
+ * Output is held in a small buffer until it either fits (sent with a
+ * Content-Length, uncompressed) or overflows the gzip threshold (sent
+ * chunked, gzip-compressed if the client's Accept-Encoding allows it).
+ * Headers are only committed at that point, so handlers can stream rows
+ * without knowing the size up front and tiny replies skip the deflate cost.
+ */
+public class ResponseBody extends OutputStream {
+
+    private static final boolean GZIP_ENABLED = Boolean.parseBoolean(System.getProperty("http.gzip", "true"));
+    private static final int GZIP_MIN_BYTES = Integer.getInteger("http.gzip.minBytes", 1024);
+    private static final int GZIP_LEVEL = Integer.getInteger("http.gzip.level", Deflater.DEFAULT_COMPRESSION);
+    private static final int STREAM_BUFFER = 8192;
+
+    private final HttpExchange exchange;
+    private int status;
+    private final boolean gzip;
+
+    private byte[] buf;
+    private int count;
+    private OutputStream out; // null until the headers are sent
+    private boolean closed;
+
+    public ResponseBody(HttpExchange exchange, int status) {
+        this.exchange = exchange;
+        this.status = status;
+        this.gzip = GZIP_ENABLED && acceptsGzip(exchange.getRequestHeaders().getFirst("Accept-Encoding"));
+        this.buf = new byte[gzip ? Math.max(1, GZIP_MIN_BYTES) : STREAM_BUFFER];
+        if (GZIP_ENABLED) exchange.getResponseHeaders().set("Vary", "Accept-Encoding");
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        if (out == null && count == buf.length) commit(false);
+        if (out != null) {
+            out.write(b);
+        } else {
+            buf[count++] = (byte) b;
+        }
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+        if (out == null && count + len > buf.length) commit(false);
+        if (out != null) {
+            out.write(b, off, len);
+        } else {
+            System.arraycopy(b, off, buf, count, len);
+            count += len;
+        }
+    }
+
+    // Buffered bytes stay put until the body is known to be small or large
+    @Override
+    public void flush() throws IOException {
+        if (out != null) out.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (closed) return;
+        closed = true;
+        if (out == null) commit(true);
+        out.close();
+    }
+
+    // Swap the response for an error if nothing has been sent yet; false once headers are out
+    public boolean fail(int status, String message) throws IOException {
+        if (out != null || closed) return false;
+        byte[] bytes = message.getBytes(java.nio.charset.StandardCharsets.UTF_8);
+        this.status = status;
+        exchange.getResponseHeaders().set("Content-Type", "text/plain; charset=utf-8");
+        exchange.getResponseHeaders().remove("Content-Disposition");
+        exchange.getResponseHeaders().remove("ETag"); // the validator belonged to the body that failed
+        exchange.getResponseHeaders().set("Cache-Control", "no-store");
+        buf = bytes.length <= buf.length ? buf : new byte[bytes.length];
+        System.arraycopy(bytes, 0, buf, 0, bytes.length);
+        count = bytes.length;
+        close();
+        return true;
+    }
+
+    // complete = the whole body is in buf, so it can go out with an exact Content-Length
+    private void commit(boolean complete) throws IOException {
+        OutputStream raw;
+        if (complete) {
+            exchange.sendResponseHeaders(status, count == 0 ? -1 : count);
+            raw = exchange.getResponseBody();
+        } else if (gzip) {
+            Headers headers = exchange.getResponseHeaders();
+            headers.set("Content-Encoding", "gzip");
+            String etag = headers.getFirst("ETag");
+            if (etag != null) headers.set("ETag", gzipEtag(etag));
+            exchange.sendResponseHeaders(status, 0);
+            raw = new GZIPOutputStream(exchange.getResponseBody(), STREAM_BUFFER) {
+                { def.setLevel(GZIP_LEVEL); }
+            };
+        } else {
+            exchange.sendResponseHeaders(status, 0);
+            raw = exchange.getResponseBody();
+        }
+        out = raw;
+        if (count > 0) out.write(buf, 0, count);
+        buf = null;
+        count = 0;
+    }
+
+    // The gzip bytes are a different representation, so they get their own strong validator
+    static String gzipEtag(String etag) {
+        return etag.endsWith("\"") ? etag.substring(0, etag.length() - 1) + "-gz\"" : etag;
+    }
+
+    // If-None-Match against an ETag this server produced, in either encoding
+    public static boolean matches(String ifNoneMatch, String etag) {
+        return matchingEtag(ifNoneMatch, etag) != null;
+    }
+
+    // The variant of etag the client holds (identity or gzip), for the 304 to echo; null if none matches
+    public static String matchingEtag(String ifNoneMatch, String etag) {
+        if (ifNoneMatch == null) return null;
+        String gzip = gzipEtag(etag);
+        for (String candidate : ifNoneMatch.split(",")) {
+            String tag = candidate.trim();
+            if (tag.equals("*")) return etag;
+            if (tag.startsWith("W/")) tag = tag.substring(2); // If-None-Match uses weak comparison
+            if (tag.equals(etag)) return etag;
+            if (tag.equals(gzip)) return gzip;
+        }
+        return null;
+    }
+
+    // "gzip" listed without q=0, or covered by "*" when gzip is not listed at all
+    static boolean acceptsGzip(String acceptEncoding) {
+        if (acceptEncoding == null) return false;
+        double gzipQ = -1, starQ = -1;
+        for (String part : acceptEncoding.split(",")) {
+            String[] params = part.trim().split(";");
+            String coding = params[0].trim();
+            double q = 1;
+            for (int i = 1; i < params.length; i++) {
+                String p = params[i].trim();
+                if (p.startsWith("q=")) {
+                    try {
+                        q = Double.parseDouble(p.substring(2));
+                    } catch (NumberFormatException e) {
+                        q = 0;
+                    }
+                }
+            }
+            if (coding.equalsIgnoreCase("gzip") || coding.equalsIgnoreCase("x-gzip")) gzipQ = q;
+            else if (coding.equals("*")) starQ = q;
+        }
+        return gzipQ >= 0 ? gzipQ > 0 : starQ > 0;
+    }
+}
@@ -0,0 +1,121 @@
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.sql.*;
+import java.util.*;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Applies db/migrations/V<n>__<description>.sql files that are newer than the
+ * highest version recorded in schema_version.
+ *
+ * Usage: java SchemaMigrator [migrationsDir]
+ */
+public class SchemaMigrator {
+
+    private static final Pattern FILE_NAME = Pattern.compile("V(\\d+)__(.+)\\.sql");
+
+    // MySQL errors meaning "already there": duplicate table, column or index name
+    private static final Set<Integer> ALREADY_APPLIED = Set.of(1050, 1060, 1061);
+
+    public static void main(String[] args) {
+        Path dir = Paths.get(args.length > 0 ? args[0] : "db/migrations");
+        int applied = migrate(dir);
+        if (applied >= 0) {
+            System.out.println("✅ Schema up to date (" + applied + " migration(s) applied)");
+        }
+        DatabaseConnection.shutdown();
+    }
+
+    // Returns the number of migrations applied, or -1 if one failed
+    public static int migrate(Path dir) {
+        try (Connection conn = DatabaseConnection.connect()) {
+            try (Statement stmt = conn.createStatement()) {
+                stmt.execute("""
+                    CREATE TABLE IF NOT EXISTS schema_version (
+                        version INT PRIMARY KEY,
+                        description VARCHAR(200) NOT NULL,
+                        applied_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP
+                    )
+                """);
+            }
+
+            int current = currentVersion(conn);
+            int applied = 0;
+            for (Map.Entry<Integer, Path> migration : findMigrations(dir).entrySet()) {
+                int version = migration.getKey();
+                if (version <= current) continue;
+
+                Path file = migration.getValue();
+                System.out.println("⏳ Applying " + file.getFileName());
+                for (String statement : splitStatements(Files.readString(file, StandardCharsets.UTF_8))) {
+                    try (Statement stmt = conn.createStatement()) {
+                        stmt.execute(statement);
+                    } catch (SQLException e) {
+                        if (!ALREADY_APPLIED.contains(e.getErrorCode())) throw e;
+                        System.out.println("   skipped (already present): " + e.getMessage());
+                    }
+                }
+                recordVersion(conn, version, describe(file));
+                applied++;
+            }
+            return applied;
+
+        } catch (SQLException | IOException e) {
+            System.out.println("❌ Migration failed: " + e.getMessage());
+            return -1;
+        }
+    }
+
+    private static int currentVersion(Connection conn) throws SQLException {
+        try (Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT COALESCE(MAX(version), 0) FROM schema_version")) {
+            rs.next();
+            return rs.getInt(1);
+        }
+    }
+
+    private static void recordVersion(Connection conn, int version, String description) throws SQLException {
+        try (PreparedStatement pstmt = conn.prepareStatement(
+                "INSERT INTO schema_version (version, description) VALUES (?, ?)")) {
+            pstmt.setInt(1, version);
+            pstmt.setString(2, description);
+            pstmt.executeUpdate();
+        }
+    }
+
+    private static SortedMap<Integer, Path> findMigrations(Path dir) throws IOException {
+        SortedMap<Integer, Path> migrations = new TreeMap<>();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(dir, "V*__*.sql")) {
+            for (Path file : files) {
+                Matcher m = FILE_NAME.matcher(file.getFileName().toString());
+                if (m.matches()) migrations.put(Integer.parseInt(m.group(1)), file);
+            }
+        }
+        return migrations;
+    }
+
+    private static String describe(Path file) {
+        Matcher m = FILE_NAME.matcher(file.getFileName().toString());
+        return m.matches() ? m.group(2).replace('_', ' ') : file.getFileName().toString();
+    }
+
+    // Statements end with ';' at the end of a line; "--" comment lines are dropped
+    static List<String> splitStatements(String script) {
+        List<String> statements = new ArrayList<>();
+        StringBuilder current = new StringBuilder();
+        for (String line : script.split("\\R")) {
+            String trimmed = line.trim();
+            if (trimmed.isEmpty() || trimmed.startsWith("--")) continue;
+            current.append(line).append('\n');
+            if (trimmed.endsWith(";")) {
+                String sql = current.toString().trim();
+                statements.add(sql.substring(0, sql.length() - 1));
+                current.setLength(0);
+            }
+        }
+        if (!current.toString().isBlank()) statements.add(current.toString().trim());
+        return statements;
+    }
+}
@@ -0,0 +1,461 @@
+import java.io.IOException;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * In-memory full-text index over expense descriptions, one per user.
+ *
+ * Descriptions are split into lowercase letter/digit tokens; each token maps
+ * to a sorted posting list of document slots, and the token dictionary is a
+ * TreeMap so a query word also matches every token it is a prefix of
+ * ("cof" finds "coffee"). All query words must match. Hits are ranked
+ * BM25-style (rare words and short descriptions score higher, prefix
+ * matches less than exact ones), newest first on ties.
+ *
+ * ExpenseManager feeds every add and delete in. A user's index is built
+ * from storage on their first search, or for everyone at once by
+ * loadAll() when the server starts. Deleted documents are tombstoned and
+ * the postings compacted once the garbage outweighs the live rows.
+ */
+public class SearchIndex {
+
+    private static final int MAX_QUERY_TERMS = 8;
+    private static final int MAX_TOKEN_LENGTH = 32;
+    // A one- or two-letter prefix can match thousands of words; only this many (alphabetically) are expanded
+    private static final int MAX_EXPANSIONS = Integer.getInteger("search.maxExpansions", 256);
+
+    // BM25 with every term frequency taken as 1 (descriptions are a handful of words)
+    private static final float K1 = 1.2f;
+    private static final float B = 0.75f;
+
+    public record Hit(Expense expense, double score) {}
+
+    public record Result(List<Hit> hits, int matches) {}
+
+    public record Stats(int users, int documents, int terms) {}
+
+    private static final Map<Integer, UserIndex> INDEXES = new ConcurrentHashMap<>();
+
+    // Indexes taking part in a running loadAll() scan, null when none runs
+    private static final Object PRELOAD_LOCK = new Object();
+    private static volatile Map<Integer, UserIndex> preloading;
+
+    // ✅ Top `limit` expenses of userId whose description matches every word of query
+    public static Result search(int userId, String query, int limit) throws SQLException {
+        List<String> terms = tokenize(query);
+        if (terms.isEmpty() || limit <= 0) return new Result(List.of(), 0);
+        if (terms.size() > MAX_QUERY_TERMS) terms = terms.subList(0, MAX_QUERY_TERMS);
+        return index(userId).search(terms, limit);
+    }
+
+    // ✅ Called after an expense is stored (its expenseId set)
+    public static void added(Expense expense) {
+        UserIndex index = indexFor(expense.getUserId());
+        if (index == null) return; // not built yet; the build will read it from storage
+        if (expense.getExpenseId() <= 0) {
+            INDEXES.remove(expense.getUserId(), index); // cannot be indexed by id, rebuild on next search
+            return;
+        }
+        index.add(expense.getExpenseId(), expense.getCategoryId(), expense.getAmount(),
+                expense.getExpenseDate(), expense.getDescription());
+    }
+
+    // ✅ Called after an expense is deleted
+    public static void removed(int expenseId, int userId) {
+        UserIndex index = indexFor(userId);
+        if (index != null) index.remove(expenseId);
+    }
+
+    // ✅ Build every user's index in one storage scan (server startup); returns the row count
+    public static int loadAll() throws SQLException {
+        long start = System.nanoTime();
+        Map<Integer, UserIndex> loading = new ConcurrentHashMap<>();
+        synchronized (PRELOAD_LOCK) {
+            preloading = loading;
+        }
+        int rows = 0;
+        boolean ok = false;
+        try {
+            rows = Storage.expenses().forEachExpense(e -> {
+                UserIndex index = loading.get(e.getUserId());
+                if (index == null) index = indexFor(e.getUserId());
+                index.addLoaded(e.getExpenseId(), e.getCategoryId(), e.getAmount(), e.getExpenseDate(), e.getDescription());
+            });
+            ok = true;
+        } catch (IOException e) {
+            throw new SQLException("Could not load expenses", e); // the visitor does no I/O
+        } finally {
+            synchronized (PRELOAD_LOCK) {
+                preloading = null; // no index joins the scan after this
+            }
+            for (UserIndex index : loading.values()) index.endLoad(ok); // after a failure, users load on demand
+        }
+        System.out.printf("🔎 Search index: %d expenses of %d users in %d ms%n",
+                rows, loading.size(), (System.nanoTime() - start) / 1_000_000);
+        return rows;
+    }
+
+    public static Stats stats() {
+        int documents = 0, terms = 0;
+        for (UserIndex index : INDEXES.values()) {
+            index.lock.readLock().lock();
+            try {
+                documents += index.live;
+                terms += index.postings.size();
+            } finally {
+                index.lock.readLock().unlock();
+            }
+        }
+        return new Stats(INDEXES.size(), documents, terms);
+    }
+
+    // Index that a write for userId goes to. While loadAll() scans, every user gets one and it joins
+    // the scan, so writes that race the scan are neither lost (added before the scan reaches the user)
+    // nor brought back (deleted after the scan read the row). Otherwise only already-created indexes.
+    private static UserIndex indexFor(int userId) {
+        if (preloading != null) {
+            synchronized (PRELOAD_LOCK) {
+                Map<Integer, UserIndex> loading = preloading;
+                if (loading != null) return loading.computeIfAbsent(userId, id -> {
+                    UserIndex index = INDEXES.computeIfAbsent(id, UserIndex::new);
+                    index.beginLoad();
+                    return index;
+                });
+            }
+        }
+        return INDEXES.get(userId);
+    }
+
+    private static UserIndex index(int userId) throws SQLException {
+        UserIndex index = INDEXES.computeIfAbsent(userId, UserIndex::new);
+        if (!index.built) index.build();
+        return index;
+    }
+
+    // Lowercase runs of letters/digits, deduplicated, in order of first appearance
+    static List<String> tokenize(String text) {
+        if (text == null || text.isEmpty()) return List.of();
+        List<String> tokens = new ArrayList<>(4);
+        String lower = text.toLowerCase(Locale.ROOT);
+        int i = 0, n = lower.length();
+        while (i < n) {
+            while (i < n && !Character.isLetterOrDigit(lower.codePointAt(i))) i += Character.charCount(lower.codePointAt(i));
+            int start = i;
+            while (i < n && Character.isLetterOrDigit(lower.codePointAt(i))) i += Character.charCount(lower.codePointAt(i));
+            if (i > start) {
+                String token = lower.substring(start, Math.min(i, start + MAX_TOKEN_LENGTH));
+                if (!tokens.contains(token)) tokens.add(token);
+            }
+        }
+        return tokens;
+    }
+
+    // Growable sorted int array of document slots
+    private static final class IntList {
+        int[] values = new int[4];
+        int size;
+
+        void add(int v) {
+            if (size == values.length) values = Arrays.copyOf(values, size * 2);
+            values[size++] = v;
+        }
+    }
+
+    private static final class UserIndex {
+        final int userId;
+        final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+        volatile boolean built;
+
+        // Documents by slot; slot order is insertion order, so posting lists stay sorted by appending.
+        // A deleted document keeps its slot with expenseIds[slot] == 0 until the next compaction.
+        int[] expenseIds = new int[64];
+        int[] categoryIds = new int[64];
+        double[] amounts = new double[64];
+        int[] epochDays = new int[64];
+        short[] lengths = new short[64]; // token count
+        String[] descriptions = new String[64];
+        int slots;
+        int live;
+        long totalLength; // of live documents, for the average length in BM25
+
+        final Map<Integer, Integer> slotByExpenseId = new HashMap<>();
+        final TreeMap<String, IntList> postings = new TreeMap<>();
+
+        // While a storage scan is running it may still hand us rows deleted meanwhile; remember those
+        int loads;
+        final Set<Integer> deletedWhileLoading = new HashSet<>();
+
+        UserIndex(int userId) {
+            this.userId = userId;
+        }
+
+        // First search for this user: read their expenses (concurrent writes are applied as they happen)
+        synchronized void build() throws SQLException {
+            if (built) return;
+            beginLoad();
+            boolean ok = false;
+            try {
+                Storage.expenses().forEachUserExpense(userId, true, e -> addLoaded(e.getExpenseId(),
+                        e.getCategoryId(), e.getAmount(), e.getExpenseDate(), e.getDescription()));
+                ok = true;
+            } catch (IOException e) {
+                throw new SQLException("Could not load expenses", e); // the visitor does no I/O
+            } finally {
+                endLoad(ok);
+            }
+        }
+
+        void beginLoad() {
+            lock.writeLock().lock();
+            try {
+                loads++;
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+
+        void endLoad(boolean complete) {
+            lock.writeLock().lock();
+            try {
+                if (--loads == 0) deletedWhileLoading.clear();
+                if (complete) built = true;
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+
+        void addLoaded(int expenseId, int categoryId, double amount, LocalDate date, String description) {
+            lock.writeLock().lock();
+            try {
+                if (!deletedWhileLoading.contains(expenseId)) addLocked(expenseId, categoryId, amount, date, description);
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+
+        void add(int expenseId, int categoryId, double amount, LocalDate date, String description) {
+            lock.writeLock().lock();
+            try {
+                addLocked(expenseId, categoryId, amount, date, description);
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+
+        private void addLocked(int expenseId, int categoryId, double amount, LocalDate date, String description) {
+            if (slotByExpenseId.containsKey(expenseId)) return; // seen by both a load and the write path
+            List<String> tokens = tokenize(description);
+            int slot = slots;
+            if (slot == expenseIds.length) grow();
+            expenseIds[slot] = expenseId;
+            categoryIds[slot] = categoryId;
+            amounts[slot] = amount;
+            epochDays[slot] = (int) date.toEpochDay();
+            lengths[slot] = (short) Math.min(tokens.size(), Short.MAX_VALUE);
+            descriptions[slot] = description;
+            slots++;
+            live++;
+            totalLength += lengths[slot];
+            slotByExpenseId.put(expenseId, slot);
+            for (String token : tokens) {
+                postings.computeIfAbsent(token, t -> new IntList()).add(slot);
+            }
+        }
+
+        void remove(int expenseId) {
+            lock.writeLock().lock();
+            try {
+                if (loads > 0) deletedWhileLoading.add(expenseId);
+                Integer slot = slotByExpenseId.remove(expenseId);
+                if (slot == null) return;
+                expenseIds[slot] = 0;
+                descriptions[slot] = null;
+                live--;
+                totalLength -= lengths[slot];
+                if (slots - live > Math.max(1024, live)) compact();
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+
+        private void grow() {
+            int capacity = expenseIds.length * 2;
+            expenseIds = Arrays.copyOf(expenseIds, capacity);
+            categoryIds = Arrays.copyOf(categoryIds, capacity);
+            amounts = Arrays.copyOf(amounts, capacity);
+            epochDays = Arrays.copyOf(epochDays, capacity);
+            lengths = Arrays.copyOf(lengths, capacity);
+            descriptions = Arrays.copyOf(descriptions, capacity);
+        }
+
+        // Drop tombstoned slots: renumber the live ones (order kept) and rewrite every posting list
+        private void compact() {
+            int[] newSlot = new int[slots];
+            int next = 0;
+            for (int slot = 0; slot < slots; slot++) {
+                if (expenseIds[slot] == 0) {
+                    newSlot[slot] = -1;
+                    continue;
+                }
+                newSlot[slot] = next;
+                expenseIds[next] = expenseIds[slot];
+                categoryIds[next] = categoryIds[slot];
+                amounts[next] = amounts[slot];
+                epochDays[next] = epochDays[slot];
+                lengths[next] = lengths[slot];
+                descriptions[next] = descriptions[slot];
+                slotByExpenseId.put(expenseIds[next], next);
+                next++;
+            }
+            Arrays.fill(descriptions, next, slots, null);
+            slots = next;
+
+            Iterator<IntList> it = postings.values().iterator();
+            while (it.hasNext()) {
+                IntList list = it.next();
+                int kept = 0;
+                for (int i = 0; i < list.size; i++) {
+                    int slot = newSlot[list.values[i]];
+                    if (slot >= 0) list.values[kept++] = slot;
+                }
+                if (kept == 0) {
+                    it.remove();
+                } else {
+                    list.size = kept;
+                }
+            }
+        }
+
+        Result search(List<String> terms, int limit) {
+            lock.readLock().lock();
+            try {
+                if (live == 0) return new Result(List.of(), 0);
+                float avgLength = Math.max(1f, (float) totalLength / live);
+
+                // One (slots, weights) list per query word, smallest first so the intersection stays small
+                List<long[]> perTerm = new ArrayList<>(terms.size());
+                for (String term : terms) {
+                    long[] matches = matches(term);
+                    if (matches.length == 0) return new Result(List.of(), 0);
+                    perTerm.add(matches);
+                }
+                perTerm.sort(Comparator.comparingInt(a -> a.length));
+
+                PriorityQueue<long[]> top = new PriorityQueue<>(limit + 1, (a, b) -> compare(a, b));
+                int matched = 0;
+                long[] first = perTerm.get(0);
+                int[] cursors = new int[perTerm.size()];
+                candidates:
+                for (long entry : first) {
+                    int slot = (int) (entry >>> 32);
+                    if (expenseIds[slot] == 0) continue;
+                    float weight = Float.intBitsToFloat((int) entry);
+                    for (int t = 1; t < perTerm.size(); t++) {
+                        long[] other = perTerm.get(t);
+                        int at = seek(other, cursors[t], slot);
+                        cursors[t] = at;
+                        if (at == other.length) break candidates; // no later slot can match every word
+                        if ((int) (other[at] >>> 32) != slot) continue candidates;
+                        weight += Float.intBitsToFloat((int) other[at]);
+                    }
+                    matched++;
+                    float norm = (K1 + 1) / (1 + K1 * (1 - B + B * lengths[slot] / avgLength));
+                    top.add(new long[]{slot, Double.doubleToLongBits(weight * norm)});
+                    if (top.size() > limit) top.poll();
+                }
+
+                List<Hit> hits = new ArrayList<>(top.size());
+                while (!top.isEmpty()) {
+                    long[] entry = top.poll();
+                    hits.add(new Hit(toExpense((int) entry[0]), Double.longBitsToDouble(entry[1])));
+                }
+                Collections.reverse(hits);
+                return new Result(hits, matched);
+            } finally {
+                lock.readLock().unlock();
+            }
+        }
+
+        // Every slot matching term exactly or by prefix, as (slot << 32 | weight bits), sorted by slot.
+        // A slot reached through several words keeps its best weight.
+        private long[] matches(String term) {
+            SortedMap<String, IntList> range = postings.subMap(term, term + Character.MAX_VALUE);
+            if (range.isEmpty()) return new long[0];
+
+            int total = 0, expanded = 0;
+            List<Map.Entry<String, IntList>> words = new ArrayList<>();
+            IntList exact = range.get(term);
+            if (exact != null) {
+                words.add(Map.entry(term, exact));
+                total += exact.size;
+            }
+            for (Map.Entry<String, IntList> word : range.entrySet()) {
+                if (expanded++ == MAX_EXPANSIONS) break;
+                if (word.getValue() == exact) continue;
+                words.add(word);
+                total += word.getValue().size;
+            }
+
+            long[] entries = new long[total];
+            int n = 0;
+            for (Map.Entry<String, IntList> word : words) {
+                IntList list = word.getValue();
+                float idf = (float) Math.log(1 + (live - list.size + 0.5) / (list.size + 0.5));
+                // prefix hits are worth less, the more of the word the query left out
+                float weight = word.getKey().length() == term.length()
+                        ? idf : idf * (0.5f + 0.4f * term.length() / word.getKey().length());
+                int bits = Float.floatToIntBits(Math.max(weight, 1e-6f));
+                for (int i = 0; i < list.size; i++) {
+                    entries[n++] = ((long) list.values[i] << 32) | (bits & 0xFFFFFFFFL);
+                }
+            }
+            if (words.size() == 1) return entries;
+
+            // positive float bits order like the floats, so after sorting the last entry per slot is its best
+            Arrays.sort(entries);
+            int kept = 0;
+            for (int i = 0; i < n; i++) {
+                if (i + 1 < n && (entries[i] >>> 32) == (entries[i + 1] >>> 32)) continue;
+                entries[kept++] = entries[i];
+            }
+            return Arrays.copyOf(entries, kept);
+        }
+
+        // First index >= from whose slot is >= slot (galloping, then binary search)
+        private static int seek(long[] entries, int from, int slot) {
+            int step = 1, hi = from;
+            while (hi < entries.length && (int) (entries[hi] >>> 32) < slot) {
+                from = hi + 1;
+                hi += step;
+                step <<= 1;
+            }
+            hi = Math.min(hi, entries.length);
+            while (from < hi) {
+                int mid = (from + hi) >>> 1;
+                if ((int) (entries[mid] >>> 32) < slot) from = mid + 1;
+                else hi = mid;
+            }
+            return from;
+        }
+
+        // Heap order: worst hit first (lower score, then older date, then lower id)
+        private int compare(long[] a, long[] b) {
+            int c = Double.compare(Double.longBitsToDouble(a[1]), Double.longBitsToDouble(b[1]));
+            if (c != 0) return c;
+            int sa = (int) a[0], sb = (int) b[0];
+            c = Integer.compare(epochDays[sa], epochDays[sb]);
+            return c != 0 ? c : Integer.compare(expenseIds[sa], expenseIds[sb]);
+        }
+
+        private Expense toExpense(int slot) {
+            Expense e = new Expense(userId, categoryIds[slot], amounts[slot], descriptions[slot],
+                    LocalDate.ofEpochDay(epochDays[slot]));
+            e.setExpenseId(expenseIds[slot]);
+            e.setCategoryName(CategoryManager.getCategoryName(categoryIds[slot]));
+            return e;
+        }
+    }
+}
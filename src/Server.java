@@ -1,38 +1,137 @@
 import com.sun.net.httpserver.HttpServer;
 import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
 import com.sun.net.httpserver.Headers;
 
 import java.io.*;
 import java.net.InetSocketAddress;
+import java.net.URLDecoder;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
 import java.sql.*;
 import java.util.*;
+import java.util.concurrent.*;
 
 public class Server {
 
+    // "virtual" = one virtual thread per request, "platform" = bounded pool of platform threads
+    private static final String EXECUTOR_MODE = System.getProperty("server.executor", "virtual");
+    private static final int PLATFORM_THREADS = Integer.getInteger("server.threads",
+            Runtime.getRuntime().availableProcessors() * 4);
+    private static final int PLATFORM_QUEUE = Integer.getInteger("server.queue", 1_000);
+    private static final int SHUTDOWN_GRACE_SECONDS = Integer.getInteger("server.shutdownGraceSeconds", 10);
+
+    // Each export holds a DB connection for as long as the client takes to download
+    private static final Semaphore EXPORTS = new Semaphore(Integer.getInteger("export.maxConcurrent", 2));
+
+    // Longest /addExpense waits for its buffered row to be committed (-Dexpense.asyncIngest=true)
+    private static final long ACK_TIMEOUT_MS = Long.getLong("expense.writeQueue.ackTimeoutMs", 10_000);
+
+    private static final int DEFAULT_PAGE_SIZE = 50;
+    private static final int MAX_PAGE_SIZE = 500;
+    private static final int DEFAULT_SEARCH_RESULTS = 20;
+    private static final int MAX_SEARCH_RESULTS = 200;
+
+    // Sliding session lifetime; -Dsession.snapshotFile=sessions.db keeps sessions across restarts
+    private static final SessionStore SESSIONS = new SessionStore(
+            Long.getLong("session.ttlMs", 30 * 60_000L),
+            Long.getLong("session.sweepMs", 60_000L),
+            System.getProperty("session.snapshotFile") != null ? Paths.get(System.getProperty("session.snapshotFile")) : null);
+
     public static void main(String[] args) throws Exception {
         HttpServer server = HttpServer.create(new InetSocketAddress(8080), 0);
+        ExecutorService executor = createExecutor();
+        server.setExecutor(executor);
 
         // Register routes
-        server.createContext("/register", Server::handleRegister);
-        server.createContext("/login", Server::handleLogin);
-        server.createContext("/addExpense", Server::handleAddExpense);
-        server.createContext("/getExpenses", Server::handleGetExpenses);
-
-        // CORS handling for frontend fetch() calls
-        server.createContext("/", exchange -> {
-            Headers headers = exchange.getResponseHeaders();
-            headers.add("Access-Control-Allow-Origin", "*");
-            headers.add("Access-Control-Allow-Methods", "GET, POST, OPTIONS");
-            headers.add("Access-Control-Allow-Headers", "Content-Type");
+        addRoute(server, "/register", Server::handleRegister);
+        addRoute(server, "/login", Server::handleLogin);
+        addRoute(server, "/logout", Server::handleLogout);
+        addRoute(server, "/addExpense", Server::handleAddExpense);
+        addRoute(server, "/addExpenses", Server::handleAddExpenses);
+        addRoute(server, "/getExpenses", Server::handleGetExpenses);
+        addRoute(server, "/getMonthlyTotals", Server::handleGetMonthlyTotals);
+        addRoute(server, "/categories", Server::handleCategories);
+        addRoute(server, "/export", Server::handleExport);
+        addRoute(server, "/search", Server::handleSearch);
+        addRoute(server, "/query", Server::handleQuery);
+        addRoute(server, "/metrics", Server::handleMetrics);
+
+        // Everything else: the dashboard files from web/ (CORS preflight still answered by route())
+        addRoute(server, "/", Server::handleStatic);
+
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> shutdown(server, executor), "server-shutdown"));
+
+        // Fill the search index in the background; users searching before it finishes get theirs built on demand
+        if (Boolean.parseBoolean(System.getProperty("search.preload", "true"))) {
+            Thread.ofPlatform().daemon().name("search-index-loader").start(() -> {
+                try {
+                    SearchIndex.loadAll();
+                } catch (SQLException e) {
+                    System.out.println("⚠️ Search index not preloaded: " + e.getMessage());
+                }
+            });
+        }
+
+        System.out.println("🚀 Server running at http://localhost:8080 (" + EXECUTOR_MODE + " threads)");
+        server.start();
+    }
+
+    private static void addRoute(HttpServer server, String path, HttpHandler handler) {
+        server.createContext(path, route(path, Metrics.route(path), handler));
+    }
+
+    // Answer CORS preflight for every route (fetch() sends one because of the Authorization header),
+    // and time everything else into the route's histogram (and tag its SQL traces with the route)
+    private static HttpHandler route(String path, Metrics.Route metrics, HttpHandler handler) {
+        return exchange -> {
             if ("OPTIONS".equals(exchange.getRequestMethod())) {
+                addCORS(exchange);
                 exchange.sendResponseHeaders(204, -1);
+                exchange.close();
                 return;
             }
-        });
+            long start = System.nanoTime();
+            SqlTrace.beginRequest(exchange.getRequestMethod() + " " + path);
+            try {
+                handler.handle(exchange);
+            } catch (BadRequest e) {
+                sendResponse(exchange, 400, "❌ " + e.getMessage()); // thrown before any response went out
+            } finally {
+                SqlTrace.endRequest();
+                metrics.record(start, exchange.getResponseCode());
+            }
+        };
+    }
 
-        System.out.println("🚀 Server running at http://localhost:8080");
-        server.start();
+    // Handlers do blocking JDBC work, so never run them on the single dispatcher thread
+    private static ExecutorService createExecutor() {
+        if ("platform".equalsIgnoreCase(EXECUTOR_MODE)) {
+            ThreadFactory factory = Thread.ofPlatform().name("http-worker-", 0).factory();
+            // When the queue is full the dispatcher runs the exchange itself, which stops it accepting more
+            return new ThreadPoolExecutor(PLATFORM_THREADS, PLATFORM_THREADS, 60, TimeUnit.SECONDS,
+                    new ArrayBlockingQueue<>(PLATFORM_QUEUE), factory, new ThreadPoolExecutor.CallerRunsPolicy());
+        }
+        return Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("http-vt-", 0).factory());
+    }
+
+    // Stop accepting, let in-flight exchanges finish, then release the DB pool
+    private static void shutdown(HttpServer server, ExecutorService executor) {
+        System.out.println("🛑 Shutting down, draining in-flight requests...");
+        server.stop(SHUTDOWN_GRACE_SECONDS);
+        executor.shutdown();
+        try {
+            if (!executor.awaitTermination(SHUTDOWN_GRACE_SECONDS, TimeUnit.SECONDS)) {
+                executor.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            executor.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+        ExpenseManager.shutdownWriteQueue();
+        SESSIONS.shutdown();
+        Storage.shutdown();
+        System.out.println("👋 Server stopped");
     }
 
     // ---------------- HANDLERS ----------------
@@ -41,7 +140,13 @@ public class Server {
         if ("POST".equals(exchange.getRequestMethod())) {
             Map<String, String> data = parseBody(readBody(exchange));
             User user = new User(data.get("username"), data.get("email"), data.get("password"), data.get("fullName"));
-            boolean success = UserManager.registerUser(user);
+            boolean success;
+            try {
+                success = UserManager.registerUser(user);
+            } catch (PasswordHasher.OverloadedException e) {
+                sendBusy(exchange, e.getMessage());
+                return;
+            }
             sendResponse(exchange, success ? "✅ Registered successfully" : "❌ Registration failed");
         }
     }
@@ -49,66 +154,602 @@ public class Server {
     private static void handleLogin(HttpExchange exchange) throws IOException {
         if ("POST".equals(exchange.getRequestMethod())) {
             Map<String, String> data = parseBody(readBody(exchange));
-            User user = UserManager.loginUser(data.get("username"), data.get("password"));
-            sendResponse(exchange, user != null ? "✅ Login successful" : "❌ Invalid credentials");
+            User user;
+            try {
+                user = UserManager.loginUser(data.get("username"), data.get("password"));
+            } catch (PasswordHasher.OverloadedException e) {
+                sendBusy(exchange, e.getMessage());
+                return;
+            }
+            if (user == null) {
+                sendResponse(exchange, 401, "❌ Invalid credentials");
+                return;
+            }
+
+            // The token replaces the raw userId on every later request
+            ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+            JsonWriter json = new JsonWriter(buffer);
+            json.beginObject()
+                .name("message").value("✅ Login successful")
+                .name("token").value(SESSIONS.create(user))
+                .name("userId").value(user.getUserId())
+                .name("fullName").value(user.getFullName())
+                .endObject();
+            json.flush();
+            sendJson(exchange, buffer.toString(StandardCharsets.UTF_8));
+        }
+    }
+
+    private static void handleLogout(HttpExchange exchange) throws IOException {
+        if ("POST".equals(exchange.getRequestMethod())) {
+            SESSIONS.invalidate(bearerToken(exchange));
+            sendResponse(exchange, "👋 Logged out");
         }
     }
 
     private static void handleAddExpense(HttpExchange exchange) throws IOException {
         if ("POST".equals(exchange.getRequestMethod())) {
+            SessionStore.Session session = requireSession(exchange);
+            if (session == null) return;
+
             Map<String, String> data = parseBody(readBody(exchange));
-            Expense expense = new Expense(
-                Integer.parseInt(data.get("userId")),
+            Expense expense;
+            try {
+                expense = new Expense(
+                    session.getUserId(),
+                    Integer.parseInt(data.get("categoryId")),
+                    Double.parseDouble(data.get("amount")),
+                    data.get("description"),
+                    java.time.LocalDate.now()
+                );
+            } catch (NumberFormatException | NullPointerException e) {
+                sendResponse(exchange, 400, "❌ categoryId and amount must be numbers");
+                return;
+            }
+
+            if (ExpenseManager.isAsyncIngestEnabled()) {
+                addExpenseBuffered(exchange, expense, data.get("durability"));
+                return;
+            }
+
+            boolean success = ExpenseManager.addExpense(expense);
+            sendResponse(exchange, success ? "✅ Expense added" : "❌ Failed to add expense");
+        }
+    }
+
+    // durability=enqueue acks as soon as the row is buffered; anything else waits for the commit
+    private static void addExpenseBuffered(HttpExchange exchange, Expense expense, String durability) throws IOException {
+        ExpenseWriteQueue.Durability mode = "enqueue".equalsIgnoreCase(durability)
+                ? ExpenseWriteQueue.Durability.ON_ENQUEUE
+                : ExpenseWriteQueue.Durability.ON_COMMIT;
+        try {
+            boolean success = ExpenseManager.addExpenseAsync(expense, mode).get(ACK_TIMEOUT_MS, TimeUnit.MILLISECONDS);
+            sendResponse(exchange, success ? "✅ Expense added" : "❌ Failed to add expense");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RejectedExecutionException) {
+                // queue full: tell the client to back off
+                sendBusy(exchange, "Server busy, try again");
+            } else {
+                sendResponse(exchange, 500, "❌ Failed to add expense");
+            }
+        } catch (TimeoutException e) {
+            // still queued; it may yet be committed, so a blind retry could add it twice
+            sendResponse(exchange, 500, "❌ Expense not confirmed in time, check your list before retrying");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            sendResponse(exchange, 503, "❌ Server shutting down");
+        }
+    }
+
+    // Bulk insert: one form-encoded expense per line (categoryId, amount, description, date)
+    private static void handleAddExpenses(HttpExchange exchange) throws IOException {
+        if ("POST".equals(exchange.getRequestMethod())) {
+            SessionStore.Session session = requireSession(exchange);
+            if (session == null) return;
+
+            List<Expense> expenses = new ArrayList<>();
+            try (BufferedReader reader = new BufferedReader(
+                    new InputStreamReader(exchange.getRequestBody(), StandardCharsets.UTF_8))) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    if (!line.isBlank()) expenses.add(parseExpense(session.getUserId(), line));
+                }
+            }
+
+            BatchResult result = ExpenseManager.addExpenses(expenses);
+
+            ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+            JsonWriter json = new JsonWriter(buffer);
+            json.beginObject()
+                .name("inserted").value(result.getSucceeded())
+                .name("failed").value(result.getFailed())
+                .name("results").beginArray();
+            for (int i = 0; i < result.size(); i++) {
+                json.value(result.isSuccess(i));
+            }
+            json.endArray().name("errors").beginArray();
+            for (int i = 0; i < result.size(); i++) {
+                if (!result.isSuccess(i)) {
+                    json.beginObject().name("index").value(i).name("error").value(result.getError(i)).endObject();
+                }
+            }
+            json.endArray().endObject();
+            json.flush();
+            sendJson(exchange, buffer.toString(StandardCharsets.UTF_8));
+        }
+    }
+
+    // Returns null for lines that cannot be parsed; addExpenses reports them as failed items
+    private static Expense parseExpense(int userId, String line) {
+        try {
+            Map<String, String> data = parseBody(line);
+            String date = data.get("date");
+            return new Expense(
+                userId,
                 Integer.parseInt(data.get("categoryId")),
                 Double.parseDouble(data.get("amount")),
                 data.get("description"),
-                java.time.LocalDate.now()
+                date != null ? java.time.LocalDate.parse(date) : java.time.LocalDate.now()
             );
-
-            boolean success = ExpenseManager.addExpense(expense);
-            sendResponse(exchange, success ? "✅ Expense added" : "❌ Failed to add expense");
+        } catch (RuntimeException e) {
+            return null;
         }
     }
 
     private static void handleGetExpenses(HttpExchange exchange) throws IOException {
         if ("GET".equals(exchange.getRequestMethod())) {
-            String query = exchange.getRequestURI().getQuery();
-            int userId = Integer.parseInt(query.split("=")[1]);
-            List<Expense> expenses = ExpenseManager.getUserExpenses(userId);
+            SessionStore.Session session = requireSession(exchange);
+            if (session == null) return;
+
+            Map<String, String> params = parseBody(exchange.getRequestURI().getRawQuery());
+            int userId = session.getUserId();
+            String etag = ExpenseManager.getDataEtag(userId); // before the read, so a concurrent write makes it stale
+            if (notModified(exchange, etag, "private, no-cache")) return;
 
-            StringBuilder sb = new StringBuilder("[");
-            for (Expense e : expenses) {
-                sb.append(String.format(
-                    "{\"category\":\"%s\", \"amount\":%.2f, \"desc\":\"%s\", \"date\":\"%s\"},",
-                    e.getCategoryName(), e.getAmount(), e.getDescription(), e.getExpenseDate()
-                ));
+            if (params.containsKey("cursor") || params.containsKey("limit")) {
+                sendExpensePage(exchange, userId, etag, params);
+                return;
+            }
+
+            // Stream rows straight from the DB cursor into the body (chunked and gzipped once it gets big).
+            // The headers go out with the first rows; if the read fails before that, fail() drops the ETag.
+            exchange.getResponseHeaders().add("Content-Type", "application/json");
+            tag(exchange, etag, "private, no-cache");
+            addCORS(exchange);
+            ResponseBody body = new ResponseBody(exchange, 200);
+            JsonWriter json = new JsonWriter(body);
+            json.beginArray();
+            if (ExpenseManager.forEachUserExpense(userId, e -> writeExpense(json, e)) < 0) {
+                if (body.fail(500, "❌ Could not load expenses")) return;
+                // Rows already went out: leave the chunked body unterminated so the client sees
+                // a broken response rather than a short array that looks complete
+                throw new IOException("Expense listing failed part-way for user " + userId);
             }
-            if (sb.length() > 1) sb.setLength(sb.length() - 1);
-            sb.append("]");
-            sendJson(exchange, sb.toString());
+            json.endArray();
+            json.flush();
+            body.close();
         }
     }
 
+    // /getExpenses?limit=..&cursor=.. -> {"items":[...],"nextCursor":"..."|null}
+    private static void sendExpensePage(HttpExchange exchange, int userId, String etag, Map<String, String> params) throws IOException {
+        ExpenseCursor cursor;
+        int limit;
+        try {
+            String token = params.get("cursor");
+            cursor = (token == null || token.isEmpty()) ? null : ExpenseCursor.decode(token);
+            limit = params.containsKey("limit") ? Integer.parseInt(params.get("limit")) : DEFAULT_PAGE_SIZE;
+            limit = Math.max(1, Math.min(limit, MAX_PAGE_SIZE));
+        } catch (IllegalArgumentException e) {
+            sendResponse(exchange, 400, "❌ " + e.getMessage());
+            return;
+        }
+
+        ExpensePage page;
+        try {
+            page = ExpenseManager.getExpensePage(userId, cursor, limit);
+        } catch (SQLException e) {
+            sendResponse(exchange, 500, "❌ Could not load expenses");
+            return;
+        }
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        JsonWriter json = new JsonWriter(buffer);
+        json.beginObject().name("items").beginArray();
+        for (Expense e : page.items()) {
+            writeExpense(json, e);
+        }
+        json.endArray().name("nextCursor").value(page.nextCursor()).endObject();
+        json.flush();
+        tag(exchange, etag, "private, no-cache");
+        sendJson(exchange, buffer.toString(StandardCharsets.UTF_8));
+    }
+
+    // /getMonthlyTotals?year=..  or  &fromYear=..&toYear=..  -> {"2025":[jan..dec], ...}
+    private static void handleGetMonthlyTotals(HttpExchange exchange) throws IOException {
+        if ("GET".equals(exchange.getRequestMethod())) {
+            SessionStore.Session session = requireSession(exchange);
+            if (session == null) return;
+
+            Map<String, String> params = parseBody(exchange.getRequestURI().getRawQuery());
+            int userId = session.getUserId();
+            String etag = ExpenseManager.getDataEtag(userId);
+            if (notModified(exchange, etag, "private, no-cache")) return;
+            int thisYear = java.time.LocalDate.now().getYear();
+            int fromYear, toYear;
+            try {
+                fromYear = Integer.parseInt(params.getOrDefault("fromYear", params.getOrDefault("year", "" + thisYear)));
+                toYear = Integer.parseInt(params.getOrDefault("toYear", "" + fromYear));
+            } catch (NumberFormatException e) {
+                sendResponse(exchange, 400, "❌ Invalid year");
+                return;
+            }
+            if (toYear < fromYear || toYear - fromYear > 50) {
+                sendResponse(exchange, 400, "❌ Invalid year range");
+                return;
+            }
+
+            Map<Integer, double[]> totals;
+            try {
+                totals = ExpenseManager.getMonthlyTotals(userId, fromYear, toYear);
+            } catch (SQLException e) {
+                sendResponse(exchange, 500, "❌ Could not load monthly totals");
+                return;
+            }
+            ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+            JsonWriter json = new JsonWriter(buffer);
+            json.beginObject();
+            for (Map.Entry<Integer, double[]> year : totals.entrySet()) {
+                json.name(String.valueOf(year.getKey())).beginArray();
+                for (double monthTotal : year.getValue()) {
+                    json.valueMoney(monthTotal);
+                }
+                json.endArray();
+            }
+            json.endObject();
+            json.flush();
+            tag(exchange, etag, "private, no-cache");
+            sendJson(exchange, buffer.toString(StandardCharsets.UTF_8));
+        }
+    }
+
+    // /export?format=csv|ndjson&from=yyyy-MM-dd&to=yyyy-MM-dd (inclusive, both optional)
+    // Streams from the storage cursor; chunked, and gzipped when the client accepts it
+    private static void handleExport(HttpExchange exchange) throws IOException {
+        if ("GET".equals(exchange.getRequestMethod())) {
+            SessionStore.Session session = requireSession(exchange);
+            if (session == null) return;
+
+            Map<String, String> params = parseBody(exchange.getRequestURI().getRawQuery());
+            ExpenseExport.Format format;
+            java.time.LocalDate from, to;
+            try {
+                format = ExpenseExport.Format.parse(params.get("format"));
+                from = params.containsKey("from") ? java.time.LocalDate.parse(params.get("from")) : null;
+                to = params.containsKey("to") ? java.time.LocalDate.parse(params.get("to")) : null;
+            } catch (IllegalArgumentException | java.time.DateTimeException e) {
+                sendResponse(exchange, 400, "❌ " + e.getMessage());
+                return;
+            }
+            if (!EXPORTS.tryAcquire()) {
+                sendBusy(exchange, "Too many exports running, try again shortly");
+                return;
+            }
+            try {
+                Headers headers = exchange.getResponseHeaders();
+                headers.set("Content-Type", format.contentType());
+                headers.set("Content-Disposition", "attachment; filename=\"" + ExpenseExport.fileName(from, to, format) + "\"");
+                headers.set("Cache-Control", "private, no-store");
+                addCORS(exchange);
+                ResponseBody body = new ResponseBody(exchange, 200);
+                if (ExpenseExport.write(session.getUserId(), from, to, format, body) < 0
+                        && !body.fail(500, "❌ Export failed")) {
+                    // Rows already went out: leave the chunked body unterminated so the client sees
+                    // a broken download rather than a short file that looks complete
+                    throw new IOException("Export failed part-way for user " + session.getUserId());
+                }
+                body.close();
+            } finally {
+                EXPORTS.release();
+            }
+        }
+    }
+
+    // /search?q=coffee+sta&limit=20 -> {"matches":N,"results":[...best first]}
+    private static void handleSearch(HttpExchange exchange) throws IOException {
+        if ("GET".equals(exchange.getRequestMethod())) {
+            SessionStore.Session session = requireSession(exchange);
+            if (session == null) return;
+
+            Map<String, String> params = parseBody(exchange.getRequestURI().getRawQuery());
+            String query = params.get("q");
+            int limit;
+            try {
+                limit = params.containsKey("limit") ? Integer.parseInt(params.get("limit")) : DEFAULT_SEARCH_RESULTS;
+                limit = Math.max(1, Math.min(limit, MAX_SEARCH_RESULTS));
+            } catch (NumberFormatException e) {
+                sendResponse(exchange, 400, "❌ Invalid limit");
+                return;
+            }
+            if (query == null || query.isBlank()) {
+                sendResponse(exchange, 400, "❌ Missing q");
+                return;
+            }
+            int userId = session.getUserId();
+            String etag = ExpenseManager.getDataEtag(userId);
+            if (notModified(exchange, etag, "private, no-cache")) return;
+
+            SearchIndex.Result result;
+            try {
+                result = ExpenseManager.searchExpenses(userId, query, limit);
+            } catch (SQLException e) {
+                sendResponse(exchange, 500, "❌ Search failed");
+                return;
+            }
+            ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+            JsonWriter json = new JsonWriter(buffer);
+            json.beginObject().name("matches").value(result.matches()).name("results").beginArray();
+            for (SearchIndex.Hit hit : result.hits()) {
+                writeExpenseWithId(json, hit.expense());
+            }
+            json.endArray().endObject();
+            json.flush();
+            tag(exchange, etag, "private, no-cache");
+            sendJson(exchange, buffer.toString(StandardCharsets.UTF_8));
+        }
+    }
+
+    // /query?categories=1,Food&from=2025-01-01&to=2025-03-31&min=10&max=500&sort=amount&order=desc
+    //       &limit=100&offset=0&total=true  -> {"items":[...],"total":N}
+    // Dates are inclusive and every parameter is optional; filtering, sorting and paging all happen in storage
+    private static void handleQuery(HttpExchange exchange) throws IOException {
+        if ("GET".equals(exchange.getRequestMethod())) {
+            SessionStore.Session session = requireSession(exchange);
+            if (session == null) return;
+
+            Map<String, String> params = parseBody(exchange.getRequestURI().getRawQuery());
+            int userId = session.getUserId();
+            ExpenseQuery query;
+            try {
+                query = parseQuery(userId, params);
+            } catch (IllegalArgumentException | java.time.DateTimeException e) {
+                sendResponse(exchange, 400, "❌ " + e.getMessage());
+                return;
+            }
+            String etag = ExpenseManager.getDataEtag(userId);
+            if (notModified(exchange, etag, "private, no-cache")) return;
+
+            List<Expense> items;
+            try {
+                items = ExpenseManager.queryExpenses(query);
+            } catch (SQLException e) {
+                sendResponse(exchange, 500, "❌ Could not load expenses");
+                return;
+            }
+            boolean withTotal = "true".equals(params.get("total"));
+            int total = withTotal ? ExpenseManager.countExpenses(query) : 0;
+            if (total < 0) {
+                sendResponse(exchange, 500, "❌ Could not count expenses");
+                return;
+            }
+            ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+            JsonWriter json = new JsonWriter(buffer);
+            json.beginObject().name("items").beginArray();
+            for (Expense e : items) {
+                writeExpenseWithId(json, e);
+            }
+            json.endArray();
+            if (withTotal) {
+                json.name("total").value(total);
+            }
+            json.endObject();
+            json.flush();
+            tag(exchange, etag, "private, no-cache");
+            sendJson(exchange, buffer.toString(StandardCharsets.UTF_8));
+        }
+    }
+
+    // Throws IllegalArgumentException (or DateTimeException) with a message fit for a 400
+    private static ExpenseQuery parseQuery(int userId, Map<String, String> params) {
+        ExpenseQuery.Builder query = ExpenseQuery.forUser(userId);
+        String categories = params.get("categories");
+        if (categories != null && !categories.isBlank()) {
+            String[] names = categories.split(",");
+            int[] ids = new int[names.length];
+            for (int i = 0; i < names.length; i++) {
+                String name = names[i].trim();
+                ids[i] = name.chars().allMatch(Character::isDigit) && !name.isEmpty()
+                        ? Integer.parseInt(name) : CategoryManager.getCategoryId(name);
+                if (ids[i] <= 0) throw new IllegalArgumentException("Unknown category: " + name);
+            }
+            query.categories(ids);
+        }
+        java.time.LocalDate from = params.containsKey("from") ? java.time.LocalDate.parse(params.get("from")) : null;
+        java.time.LocalDate to = params.containsKey("to") ? java.time.LocalDate.parse(params.get("to")).plusDays(1) : null;
+        query.between(from, to);
+        if (params.containsKey("min")) query.minAmount(Double.parseDouble(params.get("min")));
+        if (params.containsKey("max")) query.maxAmount(Double.parseDouble(params.get("max")));
+
+        ExpenseQuery.Sort sort = params.containsKey("sort") ? ExpenseQuery.Sort.parse(params.get("sort")) : ExpenseQuery.Sort.DATE;
+        String order = params.getOrDefault("order", "desc");
+        if (!order.equalsIgnoreCase("asc") && !order.equalsIgnoreCase("desc")) {
+            throw new IllegalArgumentException("Unknown order: " + order + " (use asc or desc)");
+        }
+        query.sortBy(sort, order.equalsIgnoreCase("desc"));
+
+        int limit = params.containsKey("limit") ? Integer.parseInt(params.get("limit")) : DEFAULT_PAGE_SIZE;
+        query.limit(Math.max(1, Math.min(limit, MAX_PAGE_SIZE)));
+        if (params.containsKey("offset")) query.offset(Integer.parseInt(params.get("offset")));
+        return query.build();
+    }
+
+    // Category list with an ETag, so clients can revalidate and get 304 instead of the body
+    private static void handleCategories(HttpExchange exchange) throws IOException {
+        if ("GET".equals(exchange.getRequestMethod())) {
+            String etag = CategoryManager.getEtag();
+            if (notModified(exchange, etag, "no-cache")) return;
+
+            ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+            JsonWriter json = new JsonWriter(buffer);
+            json.beginArray();
+            for (Category category : CategoryManager.getCategories()) {
+                json.beginObject()
+                    .name("id").value(category.getCategoryId())
+                    .name("name").value(category.getCategoryName())
+                    .endObject();
+            }
+            json.endArray();
+            json.flush();
+            tag(exchange, etag, "no-cache");
+            sendJson(exchange, buffer.toString(StandardCharsets.UTF_8));
+        }
+    }
+
+    // index.html, dashboard.html, style.css...; unknown paths get a real 404 instead of hanging
+    private static void handleStatic(HttpExchange exchange) throws IOException {
+        String method = exchange.getRequestMethod();
+        if (!"GET".equals(method) && !"HEAD".equals(method)) {
+            exchange.getResponseHeaders().set("Allow", "GET, HEAD, OPTIONS");
+            sendResponse(exchange, 405, "Method not allowed");
+            return;
+        }
+        if (!StaticFiles.serve(exchange)) {
+            sendResponse(exchange, 404, "❌ Not found");
+        }
+    }
+
+    // Prometheus scrape target; reads counters only, so it is cheap to poll
+    private static void handleMetrics(HttpExchange exchange) throws IOException {
+        if (!"GET".equals(exchange.getRequestMethod())) {
+            sendResponse(exchange, 405, "Method not allowed");
+            return;
+        }
+        StringBuilder text = new StringBuilder(Metrics.scrape());
+        if ("jdbc".equals(Storage.backend())) {
+            ConnectionPool.Stats pool = DatabaseConnection.poolStats();
+            Metrics.gauge(text, "db_pool_active_connections", "Connections currently borrowed", pool.active());
+            Metrics.gauge(text, "db_pool_idle_connections", "Connections idle in the pool", pool.idle());
+            Metrics.gauge(text, "db_pool_waiting_threads", "Threads waiting for a connection", pool.waiting());
+            Metrics.counter(text, "db_pool_timeouts_total", "Borrows that timed out", pool.timeouts());
+        }
+        SummaryCache.Stats cache = ExpenseManager.summaryCacheStats();
+        Metrics.gauge(text, "summary_cache_entries", "Cached summaries", cache.size());
+        Metrics.counter(text, "summary_cache_hits_total", "Summary cache hits", cache.hits());
+        Metrics.counter(text, "summary_cache_misses_total", "Summary cache misses", cache.misses());
+        Metrics.gauge(text, "sessions_active", "Live login sessions", SESSIONS.size());
+        SearchIndex.Stats search = SearchIndex.stats();
+        Metrics.gauge(text, "search_index_users", "Users with a loaded search index", search.users());
+        Metrics.gauge(text, "search_index_documents", "Expenses in the search index", search.documents());
+        Metrics.gauge(text, "search_index_terms", "Distinct words in the search index", search.terms());
+
+        byte[] body = text.toString().getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "text/plain; version=0.0.4; charset=utf-8");
+        try (OutputStream os = new ResponseBody(exchange, 200)) {
+            os.write(body);
+        }
+    }
+
+    private static void writeExpense(JsonWriter json, Expense e) throws IOException {
+        json.beginObject()
+            .name("category").value(e.getCategoryName())
+            .name("amount").valueMoney(e.getAmount())
+            .name("desc").value(e.getDescription())
+            .name("date").value(e.getExpenseDate())
+            .endObject();
+    }
+
+    // writeExpense plus the expense id, for results a client may act on (/search, /query)
+    private static void writeExpenseWithId(JsonWriter json, Expense e) throws IOException {
+        json.beginObject()
+            .name("id").value(e.getExpenseId())
+            .name("category").value(e.getCategoryName())
+            .name("amount").valueMoney(e.getAmount())
+            .name("desc").value(e.getDescription())
+            .name("date").value(e.getExpenseDate())
+            .endObject();
+    }
+
     // ---------------- HELPERS ----------------
 
+    // Resolve the caller from "Authorization: Bearer <token>"; sends 401 and returns null if missing/expired
+    private static SessionStore.Session requireSession(HttpExchange exchange) throws IOException {
+        SessionStore.Session session = SESSIONS.resolve(bearerToken(exchange));
+        if (session == null) {
+            exchange.getResponseHeaders().add("WWW-Authenticate", "Bearer");
+            sendResponse(exchange, 401, "❌ Please log in");
+        } else {
+            SqlTrace.setUser(session.getUserId());
+        }
+        return session;
+    }
+
+    // If the client already holds etag, answer 304 and return true. ETags only ever go out with a
+    // successful body (see tag), so a match means the client's copy is current and good.
+    // The 304 repeats the variant the client sent, so a cached gzip body keeps its "-gz" tag.
+    private static boolean notModified(HttpExchange exchange, String etag, String cacheControl) throws IOException {
+        String held = ResponseBody.matchingEtag(exchange.getRequestHeaders().getFirst("If-None-Match"), etag);
+        if (held == null) return false;
+
+        tag(exchange, held, cacheControl);
+        addCORS(exchange);
+        exchange.sendResponseHeaders(304, -1);
+        exchange.close();
+        return true;
+    }
+
+    // Validator for a body that was read successfully; call just before sending it, never on error paths
+    private static void tag(HttpExchange exchange, String etag, String cacheControl) {
+        Headers headers = exchange.getResponseHeaders();
+        headers.set("ETag", etag);
+        headers.set("Cache-Control", cacheControl);
+    }
+
+    // 503 + Retry-After for load shedding
+    private static void sendBusy(HttpExchange exchange, String message) throws IOException {
+        exchange.getResponseHeaders().add("Retry-After", "1");
+        sendResponse(exchange, 503, "❌ " + message);
+    }
+
+    private static String bearerToken(HttpExchange exchange) {
+        String auth = exchange.getRequestHeaders().getFirst("Authorization");
+        if (auth == null || !auth.regionMatches(true, 0, "Bearer ", 0, 7)) return null;
+        return auth.substring(7).trim();
+    }
+
     private static String readBody(HttpExchange exchange) throws IOException {
         return new String(exchange.getRequestBody().readAllBytes(), StandardCharsets.UTF_8);
     }
 
+    // Form body or raw query string -> decoded values; throws BadRequest for a malformed %-escape
     private static Map<String, String> parseBody(String body) {
         Map<String, String> map = new HashMap<>();
+        if (body == null) return map;
         for (String pair : body.split("&")) {
             String[] kv = pair.split("=");
-            if (kv.length == 2) map.put(kv[0], kv[1]);
+            if (kv.length != 2) continue;
+            try {
+                map.put(kv[0], URLDecoder.decode(kv[1], StandardCharsets.UTF_8));
+            } catch (IllegalArgumentException e) {
+                throw new BadRequest("Malformed value for " + kv[0]);
+            }
         }
         return map;
     }
 
+    // Input that cannot be parsed at all; route() answers it with 400
+    private static final class BadRequest extends RuntimeException {
+        BadRequest(String message) {
+            super(message, null, false, false);
+        }
+    }
+
     private static void sendResponse(HttpExchange exchange, String response) throws IOException {
+        sendResponse(exchange, 200, response);
+    }
+
+    private static void sendResponse(HttpExchange exchange, int status, String response) throws IOException {
         addCORS(exchange);
         byte[] bytes = response.getBytes(StandardCharsets.UTF_8);
-        exchange.sendResponseHeaders(200, bytes.length);
-        try (OutputStream os = exchange.getResponseBody()) {
+        try (OutputStream os = new ResponseBody(exchange, status)) {
             os.write(bytes);
         }
     }
@@ -122,8 +763,9 @@ public class Server {
 
     private static void addCORS(HttpExchange exchange) {
         Headers headers = exchange.getResponseHeaders();
-        headers.add("Access-Control-Allow-Origin", "*");
-        headers.add("Access-Control-Allow-Methods", "GET, POST, OPTIONS");
-        headers.add("Access-Control-Allow-Headers", "Content-Type");
+        headers.set("Access-Control-Allow-Origin", "*");
+        headers.set("Access-Control-Allow-Methods", "GET, POST, OPTIONS");
+        headers.set("Access-Control-Allow-Headers", "Content-Type, Authorization, If-None-Match");
+        headers.set("Access-Control-Expose-Headers", "ETag");
     }
 }
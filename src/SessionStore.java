@@ -0,0 +1,176 @@
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.util.Base64;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * In-memory login sessions for the HTTP server.
+ *
+ * Clients get an opaque random token at login and send it back as
+ * "Authorization: Bearer <token>". Resolving a token is a single map lookup,
+ * so authenticated requests never touch the users table. Sessions expire
+ * after a period of inactivity (sliding expiry).
+ *
+ * Only SHA-256 hashes of tokens are kept, in memory and in the optional
+ * snapshot file, so a leaked snapshot cannot be replayed.
+ */
+public class SessionStore {
+
+    public static final class Session {
+        private final int userId;
+        private final String username;
+        private final String fullName;
+        private volatile long expiresAt;
+
+        Session(int userId, String username, String fullName, long expiresAt) {
+            this.userId = userId;
+            this.username = username;
+            this.fullName = fullName;
+            this.expiresAt = expiresAt;
+        }
+
+        public int getUserId() { return userId; }
+        public String getUsername() { return username; }
+        public String getFullName() { return fullName; }
+        public long getExpiresAt() { return expiresAt; }
+    }
+
+    private static final SecureRandom RANDOM = new SecureRandom();
+
+    private final Map<String, Session> sessions = new ConcurrentHashMap<>(); // token hash -> session
+    private final long ttlMillis;
+    private final Path snapshotFile; // null = memory only
+    private final ScheduledExecutorService sweeper;
+
+    public SessionStore(long ttlMillis, long sweepIntervalMillis, Path snapshotFile) {
+        this.ttlMillis = ttlMillis;
+        this.snapshotFile = snapshotFile;
+        if (snapshotFile != null) load();
+
+        this.sweeper = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "session-sweeper");
+            t.setDaemon(true);
+            return t;
+        });
+        sweeper.scheduleAtFixedRate(this::sweep, sweepIntervalMillis, sweepIntervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    // ✅ Start a session and return its token (only ever returned here)
+    public String create(User user) {
+        byte[] raw = new byte[32];
+        RANDOM.nextBytes(raw);
+        String token = Base64.getUrlEncoder().withoutPadding().encodeToString(raw);
+        sessions.put(hash(token), new Session(user.getUserId(), user.getUsername(), user.getFullName(),
+                System.currentTimeMillis() + ttlMillis));
+        return token;
+    }
+
+    // ✅ Session for a token, or null if unknown/expired; using a session extends it
+    public Session resolve(String token) {
+        if (token == null || token.isEmpty()) return null;
+        String key = hash(token);
+        Session session = sessions.get(key);
+        if (session == null) return null;
+
+        long now = System.currentTimeMillis();
+        if (session.expiresAt <= now) {
+            sessions.remove(key, session);
+            return null;
+        }
+        session.expiresAt = now + ttlMillis;
+        return session;
+    }
+
+    public void invalidate(String token) {
+        if (token != null) sessions.remove(hash(token));
+    }
+
+    public int size() {
+        return sessions.size();
+    }
+
+    // Stop the sweeper and write a final snapshot
+    public void shutdown() {
+        sweeper.shutdownNow();
+        save();
+    }
+
+    private void sweep() {
+        long now = System.currentTimeMillis();
+        sessions.values().removeIf(s -> s.expiresAt <= now);
+        save();
+    }
+
+    // ---------------- SNAPSHOT ----------------
+    // One line per session: hash \t userId \t expiresAt \t username \t fullName (names Base64-encoded)
+
+    private synchronized void save() {
+        if (snapshotFile == null) return;
+        Path tmp = snapshotFile.resolveSibling(snapshotFile.getFileName() + ".tmp");
+        Base64.Encoder b64 = Base64.getEncoder();
+        try (BufferedWriter out = Files.newBufferedWriter(tmp, StandardCharsets.UTF_8)) {
+            for (Map.Entry<String, Session> e : sessions.entrySet()) {
+                Session s = e.getValue();
+                out.write(e.getKey() + "\t" + s.userId + "\t" + s.expiresAt + "\t"
+                        + b64.encodeToString(nullToEmpty(s.username).getBytes(StandardCharsets.UTF_8)) + "\t"
+                        + b64.encodeToString(nullToEmpty(s.fullName).getBytes(StandardCharsets.UTF_8)));
+                out.newLine();
+            }
+        } catch (IOException e) {
+            System.out.println("⚠️ Could not write session snapshot: " + e.getMessage());
+            return;
+        }
+        try {
+            Files.move(tmp, snapshotFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            System.out.println("⚠️ Could not replace session snapshot: " + e.getMessage());
+        }
+    }
+
+    private void load() {
+        if (!Files.exists(snapshotFile)) return;
+        long now = System.currentTimeMillis();
+        Base64.Decoder b64 = Base64.getDecoder();
+        int restored = 0;
+        try (BufferedReader in = Files.newBufferedReader(snapshotFile, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = in.readLine()) != null) {
+                String[] f = line.split("\t", -1);
+                if (f.length != 5) continue;
+                long expiresAt = Long.parseLong(f[2]);
+                if (expiresAt <= now) continue;
+                sessions.put(f[0], new Session(Integer.parseInt(f[1]),
+                        new String(b64.decode(f[3]), StandardCharsets.UTF_8),
+                        new String(b64.decode(f[4]), StandardCharsets.UTF_8), expiresAt));
+                restored++;
+            }
+            System.out.println("🔑 Restored " + restored + " session(s) from " + snapshotFile);
+        } catch (IOException | RuntimeException e) {
+            System.out.println("⚠️ Could not read session snapshot: " + e.getMessage());
+        }
+    }
+
+    private static String nullToEmpty(String s) {
+        return s == null ? "" : s;
+    }
+
+    private static String hash(String token) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256")
+                    .digest(token.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
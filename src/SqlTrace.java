@@ -0,0 +1,320 @@
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.time.Instant;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Statement-level tracing for the JDBC backend, plus a rotating slow-query log.
+ *
+ * Off unless -Dsql.trace=true: every call through a Proxy costs a
+ * reflective invoke, so it is a diagnostic mode, not something to run all
+ * the time. When on, DatabaseConnection.connect wraps each borrowed
+ * connection and the prepared statements it hands out are wrapped in turn
+ * (the same Proxy approach ConnectionPool uses). Every execution is timed
+ * as connection wait + execute, with the updated row count and the
+ * bind-parameter shape (types only, never values, so descriptions and
+ * password hashes stay out of the log). Result sets are handed out
+ * unwrapped, so row reads stay direct calls; time spent fetching rows
+ * after executeQuery returns is not counted.
+ *
+ * An execution slower than sql.slowQueryMs is written as SLOW; a
+ * sql.trace.sampleRate fraction of HTTP requests has every statement written
+ * as SAMPLE, so there is a baseline to compare slow ones against.
+ */
+public class SqlTrace {
+
+    private static final boolean ENABLED = Boolean.parseBoolean(System.getProperty("sql.trace", "false"));
+    private static final long SLOW_NANOS = Long.getLong("sql.slowQueryMs", 200) * 1_000_000L;
+    private static final double SAMPLE_RATE = Double.parseDouble(System.getProperty("sql.trace.sampleRate", "0"));
+    private static final Path LOG_FILE = Path.of(System.getProperty("sql.slowLog", "logs/slow-query.log"));
+    private static final long LOG_MAX_BYTES = Long.getLong("sql.slowLog.maxBytes", 10L * 1024 * 1024);
+    private static final int LOG_FILES = Math.max(1, Integer.getInteger("sql.slowLog.files", 5));
+
+    private static final Metrics.Histogram SLOW_EXECUTE = Metrics.histogram("sql_slow_statement_seconds",
+            "Statements over the slow-query threshold", "backend", "jdbc");
+
+    // Who the current thread is working for; set by Server around each request
+    private record Context(String route, int userId, boolean sampled) {}
+
+    private static final ThreadLocal<Context> CONTEXT = new ThreadLocal<>();
+
+    private static final Object LOG_LOCK = new Object();
+    private static BufferedWriter log;
+    private static long logBytes;
+
+    // ---------------- REQUEST CONTEXT ----------------
+
+    public static void beginRequest(String route) {
+        if (!ENABLED) return;
+        boolean sampled = SAMPLE_RATE > 0 && ThreadLocalRandom.current().nextDouble() < SAMPLE_RATE;
+        CONTEXT.set(new Context(route, 0, sampled));
+    }
+
+    // Attach the authenticated user once the session is resolved
+    public static void setUser(int userId) {
+        Context ctx = CONTEXT.get();
+        if (ctx != null) CONTEXT.set(new Context(ctx.route(), userId, ctx.sampled()));
+    }
+
+    public static void endRequest() {
+        CONTEXT.remove();
+    }
+
+    // ---------------- WRAPPING ----------------
+
+    // ✅ Wrap a freshly borrowed connection; waitNanos is how long the borrow took
+    public static Connection wrap(Connection conn, long waitNanos) {
+        if (!ENABLED || conn == null) return conn;
+        return (Connection) Proxy.newProxyInstance(SqlTrace.class.getClassLoader(),
+                new Class<?>[]{Connection.class}, new ConnectionHandler(conn, waitNanos));
+    }
+
+    private static final class ConnectionHandler implements InvocationHandler {
+        private final Connection target;
+        private long pendingWait; // charged to the first statement run on this connection
+
+        ConnectionHandler(Connection target, long waitNanos) {
+            this.target = target;
+            this.pendingWait = waitNanos;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "equals" -> {
+                    return proxy == args[0];
+                }
+                case "hashCode" -> {
+                    return System.identityHashCode(proxy);
+                }
+                case "toString" -> {
+                    return "Traced[" + target + "]";
+                }
+            }
+            Object result = call(target, method, args);
+            if (result instanceof PreparedStatement ps && method.getName().equals("prepareStatement")) {
+                long wait = pendingWait;
+                pendingWait = 0;
+                return Proxy.newProxyInstance(SqlTrace.class.getClassLoader(), new Class<?>[]{PreparedStatement.class},
+                        new StatementHandler(ps, (String) args[0], wait));
+            }
+            return result;
+        }
+    }
+
+    // One prepared statement; each execute* is reported separately, when the next one starts or on close
+    private static final class StatementHandler implements InvocationHandler {
+        private final PreparedStatement target;
+        private final String sql;
+        private final Context context;
+        private long waitNanos;
+
+        private String[] paramTypes = new String[8];
+        private int batchSize;
+
+        private boolean pending;
+        private long executeNanos;
+        private long rows; // -1 for queries (their rows are read straight from the driver)
+        private int batchRows;
+
+        StatementHandler(PreparedStatement target, String sql, long waitNanos) {
+            this.target = target;
+            this.sql = sql;
+            this.waitNanos = waitNanos;
+            this.context = CONTEXT.get();
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            String name = method.getName();
+            if (name.startsWith("set") && args != null && args.length >= 2 && args[0] instanceof Integer index) {
+                recordParam(index, name.substring(3));
+                return call(target, method, args);
+            }
+            switch (name) {
+                case "addBatch" -> batchSize++;
+                case "clearBatch" -> batchSize = 0;
+                case "executeQuery" -> {
+                    begin();
+                    rows = -1;
+                    long start = System.nanoTime();
+                    try {
+                        return call(target, method, args);
+                    } finally {
+                        executeNanos = System.nanoTime() - start;
+                    }
+                }
+                case "executeUpdate", "executeLargeUpdate", "execute", "executeBatch", "executeLargeBatch" -> {
+                    begin();
+                    batchRows = batchSize;
+                    batchSize = 0;
+                    long start = System.nanoTime();
+                    Object result;
+                    try {
+                        result = call(target, method, args);
+                    } finally {
+                        executeNanos = System.nanoTime() - start;
+                    }
+                    rows = updatedRows(result);
+                    return result;
+                }
+                case "close" -> finish();
+                case "equals" -> {
+                    return proxy == args[0];
+                }
+                case "hashCode" -> {
+                    return System.identityHashCode(proxy);
+                }
+            }
+            return call(target, method, args);
+        }
+
+        private void recordParam(int index, String type) {
+            if (index < 1 || index > 1024) return;
+            if (index > paramTypes.length) {
+                paramTypes = java.util.Arrays.copyOf(paramTypes, Math.max(index, paramTypes.length * 2));
+            }
+            paramTypes[index - 1] = type;
+        }
+
+        private void begin() {
+            finish();
+            pending = true;
+            executeNanos = rows = 0;
+            batchRows = 0;
+        }
+
+        private void finish() {
+            if (!pending) return;
+            pending = false;
+            long total = waitNanos + executeNanos;
+            boolean slow = total >= SLOW_NANOS;
+            if (slow) SLOW_EXECUTE.record(total);
+            if (slow || (context != null && context.sampled())) {
+                write(slow ? "SLOW" : "SAMPLE", this, total);
+            }
+            waitNanos = 0; // the wait belongs to the first execution only
+        }
+
+        String shape() {
+            StringBuilder sb = new StringBuilder("(");
+            int last = paramTypes.length;
+            while (last > 0 && paramTypes[last - 1] == null) last--;
+            for (int i = 0; i < last; i++) {
+                if (i > 0) sb.append(',');
+                sb.append(paramTypes[i] == null ? "?" : paramTypes[i]);
+            }
+            return sb.append(')').toString();
+        }
+    }
+
+    private static Object call(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+
+    private static long updatedRows(Object result) {
+        if (result instanceof Integer n) return Math.max(0, n);
+        if (result instanceof Long n) return Math.max(0, n);
+        long total = 0;
+        if (result instanceof int[] counts) {
+            for (int c : counts) total += Math.max(0, c);
+        } else if (result instanceof long[] counts) {
+            for (long c : counts) total += Math.max(0, c);
+        }
+        return total;
+    }
+
+    // ---------------- SLOW-QUERY LOG ----------------
+
+    private static void write(String kind, StatementHandler s, long totalNanos) {
+        Context ctx = s.context;
+        StringBuilder line = new StringBuilder(256)
+                .append(Instant.now()).append(' ').append(kind)
+                .append(" total_ms=").append(millis(totalNanos))
+                .append(" wait_ms=").append(millis(s.waitNanos))
+                .append(" exec_ms=").append(millis(s.executeNanos))
+                .append(" rows=").append(s.rows < 0 ? "-" : s.rows);
+        if (s.batchRows > 0) line.append(" batch=").append(s.batchRows);
+        line.append(" route=").append(ctx == null ? "-" : ctx.route())
+                .append(" user=").append(ctx == null || ctx.userId() == 0 ? "-" : ctx.userId())
+                .append(" thread=").append(Thread.currentThread().getName().isEmpty()
+                        ? "virtual-" + Thread.currentThread().threadId() : Thread.currentThread().getName())
+                .append(" params=").append(s.shape())
+                .append(" sql=").append(s.sql.replaceAll("\\s+", " ").trim())
+                .append('\n');
+        append(line.toString());
+    }
+
+    private static String millis(long nanos) {
+        return String.format("%.3f", nanos / 1e6);
+    }
+
+    private static void append(String line) {
+        synchronized (LOG_LOCK) {
+            try {
+                if (log == null) open();
+                if (logBytes + line.length() > LOG_MAX_BYTES && logBytes > 0) rotate();
+                log.write(line);
+                log.flush();
+                logBytes += line.getBytes(StandardCharsets.UTF_8).length;
+            } catch (IOException e) {
+                System.out.println("❌ Could not write slow-query log " + LOG_FILE + ": " + e.getMessage());
+            }
+        }
+    }
+
+    private static void open() throws IOException {
+        Path dir = LOG_FILE.toAbsolutePath().getParent();
+        if (dir != null) Files.createDirectories(dir);
+        log = Files.newBufferedWriter(LOG_FILE, StandardCharsets.UTF_8,
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+        logBytes = Files.size(LOG_FILE);
+    }
+
+    // slow-query.log -> .1 -> .2 ... keeping LOG_FILES files in total
+    private static void rotate() throws IOException {
+        log.close();
+        log = null;
+        if (LOG_FILES > 1) Files.deleteIfExists(rotated(LOG_FILES - 1));
+        for (int i = LOG_FILES - 2; i >= 1; i--) {
+            Path from = rotated(i);
+            if (Files.exists(from)) Files.move(from, rotated(i + 1), StandardCopyOption.REPLACE_EXISTING);
+        }
+        if (LOG_FILES > 1) {
+            Files.move(LOG_FILE, rotated(1), StandardCopyOption.REPLACE_EXISTING);
+        } else {
+            Files.deleteIfExists(LOG_FILE);
+        }
+        open();
+    }
+
+    private static Path rotated(int n) {
+        return LOG_FILE.resolveSibling(LOG_FILE.getFileName() + "." + n);
+    }
+
+    public static void shutdown() {
+        synchronized (LOG_LOCK) {
+            try {
+                if (log != null) log.close();
+            } catch (IOException ignored) {
+            } finally {
+                log = null;
+            }
+        }
+    }
+}
@@ -0,0 +1,217 @@
+import com.sun.net.httpserver.Headers;
+import com.sun.net.httpserver.HttpExchange;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Serves the dashboard (web/) so no second web server is needed.
+ *
+ * Small files are kept in memory together with a gzip copy made once at
+ * load time; they are re-checked against the disk at most every
+ * web.recheckMs so edits still show up. Larger files are streamed from a
+ * FileChannel in small chunks, so memory use does not grow with the file.
+ * This is not zero-copy: HttpExchange only offers an OutputStream, so each
+ * chunk still passes through a heap buffer on its way to the socket.
+ * Every response carries Last-Modified and an ETag, so a browser
+ * revalidating gets a 304 without a body.
+ */
+public class StaticFiles {
+
+    private static final Path ROOT = Path.of(System.getProperty("web.root", "web")).toAbsolutePath().normalize();
+    private static final long CACHE_MAX_FILE_BYTES = Long.getLong("web.cacheMaxFileBytes", 256 * 1024);
+    private static final long RECHECK_MS = Long.getLong("web.recheckMs", 2_000);
+    // HTML is revalidated on every load so a new dashboard shows up at once; CSS/JS/images may sit in the cache
+    private static final String HTML_CACHE_CONTROL = "no-cache";
+    private static final String ASSET_CACHE_CONTROL = "public, max-age=" + Long.getLong("web.maxAgeSeconds", 3600);
+
+    private static final DateTimeFormatter HTTP_DATE = DateTimeFormatter.RFC_1123_DATE_TIME.withZone(ZoneOffset.UTC);
+
+    private static final Map<String, String> TYPES = Map.of(
+            "html", "text/html; charset=utf-8",
+            "css", "text/css; charset=utf-8",
+            "js", "text/javascript; charset=utf-8",
+            "json", "application/json",
+            "svg", "image/svg+xml",
+            "png", "image/png",
+            "jpg", "image/jpeg",
+            "ico", "image/x-icon",
+            "txt", "text/plain; charset=utf-8");
+
+    // One file as last seen on disk; bytes/gzip are null for files too big to cache
+    private record Asset(Path file, long size, long lastModified, String etag, String contentType,
+                         byte[] bytes, byte[] gzip, long checkedAt) {
+
+        Asset checked(long now) {
+            return new Asset(file, size, lastModified, etag, contentType, bytes, gzip, now);
+        }
+    }
+
+    private static final Map<Path, Asset> CACHE = new ConcurrentHashMap<>();
+
+    // ✅ Send the file for the request path; false if there is no such file (caller sends 404)
+    public static boolean serve(HttpExchange exchange) throws IOException {
+        Path file = resolve(exchange.getRequestURI().getPath());
+        if (file == null) return false;
+        Asset asset = lookup(file);
+        if (asset == null) return false;
+
+        Headers headers = exchange.getResponseHeaders();
+        headers.set("Content-Type", asset.contentType());
+        headers.set("Last-Modified", HTTP_DATE.format(Instant.ofEpochMilli(asset.lastModified())));
+        headers.set("Cache-Control", asset.contentType().startsWith("text/html") ? HTML_CACHE_CONTROL : ASSET_CACHE_CONTROL);
+
+        if (notModified(exchange, asset)) {
+            headers.set("ETag", asset.etag());
+            exchange.sendResponseHeaders(304, -1);
+            exchange.close();
+            return true;
+        }
+
+        boolean head = "HEAD".equals(exchange.getRequestMethod());
+        boolean gzip = asset.gzip() != null
+                && ResponseBody.acceptsGzip(exchange.getRequestHeaders().getFirst("Accept-Encoding"));
+        if (asset.gzip() != null) headers.set("Vary", "Accept-Encoding");
+        if (gzip) {
+            headers.set("Content-Encoding", "gzip");
+            headers.set("ETag", ResponseBody.gzipEtag(asset.etag()));
+        } else {
+            headers.set("ETag", asset.etag());
+        }
+
+        if (head) {
+            exchange.sendResponseHeaders(200, -1);
+            exchange.close();
+            return true;
+        }
+
+        if (asset.bytes() != null) {
+            byte[] body = gzip ? asset.gzip() : asset.bytes();
+            exchange.sendResponseHeaders(200, body.length == 0 ? -1 : body.length);
+            try (OutputStream os = exchange.getResponseBody()) {
+                os.write(body);
+            }
+            return true;
+        }
+
+        // Large file: transferTo a stream-backed channel cannot hand off to the socket, so the JDK
+        // copies it through a small temporary buffer; the point is bounded memory, not zero-copy
+        try (FileChannel channel = FileChannel.open(asset.file(), StandardOpenOption.READ)) {
+            long size = channel.size();
+            exchange.sendResponseHeaders(200, size == 0 ? -1 : size);
+            try (OutputStream os = exchange.getResponseBody()) {
+                WritableByteChannel target = Channels.newChannel(os);
+                long position = 0;
+                while (position < size) {
+                    position += channel.transferTo(position, size - position, target);
+                }
+            }
+        }
+        return true;
+    }
+
+    // If-None-Match wins over If-Modified-Since when both are sent (RFC 9110 13.2.2)
+    private static boolean notModified(HttpExchange exchange, Asset asset) {
+        Headers request = exchange.getRequestHeaders();
+        String ifNoneMatch = request.getFirst("If-None-Match");
+        if (ifNoneMatch != null) return ResponseBody.matches(ifNoneMatch, asset.etag());
+
+        String ifModifiedSince = request.getFirst("If-Modified-Since");
+        if (ifModifiedSince == null) return false;
+        try {
+            long since = ZonedDateTime.parse(ifModifiedSince, HTTP_DATE).toInstant().toEpochMilli();
+            return asset.lastModified() <= since;
+        } catch (DateTimeParseException e) {
+            return false;
+        }
+    }
+
+    // URL path -> file under ROOT, or null for anything outside it, hidden, or not a regular file
+    private static Path resolve(String urlPath) {
+        if (urlPath == null || urlPath.isEmpty()) urlPath = "/";
+        if (urlPath.endsWith("/")) urlPath += "index.html";
+        if (urlPath.indexOf('\0') >= 0 || urlPath.contains("\\")) return null;
+        for (String segment : urlPath.split("/")) {
+            if (segment.startsWith(".")) return null; // "..", ".git", ".env"...
+        }
+        Path file = ROOT.resolve(urlPath.substring(1)).normalize();
+        return file.startsWith(ROOT) ? file : null;
+    }
+
+    private static Asset lookup(Path file) throws IOException {
+        long now = System.currentTimeMillis();
+        Asset cached = CACHE.get(file);
+        if (cached != null && now - cached.checkedAt() < RECHECK_MS) return cached;
+
+        BasicFileAttributes attrs;
+        try {
+            attrs = Files.readAttributes(file, BasicFileAttributes.class, LinkOption.NOFOLLOW_LINKS);
+        } catch (IOException e) {
+            CACHE.remove(file);
+            return null;
+        }
+        if (!attrs.isRegularFile()) {
+            CACHE.remove(file);
+            return null;
+        }
+
+        long lastModified = attrs.lastModifiedTime().toMillis() / 1000 * 1000; // HTTP dates have second precision
+        if (cached != null && cached.size() == attrs.size() && cached.lastModified() == lastModified) {
+            Asset fresh = cached.checked(now);
+            CACHE.put(file, fresh);
+            return fresh;
+        }
+
+        Asset loaded = load(file, attrs.size(), lastModified, now);
+        CACHE.put(file, loaded);
+        return loaded;
+    }
+
+    private static Asset load(Path file, long size, long lastModified, long now) throws IOException {
+        String name = file.getFileName().toString();
+        String extension = name.substring(name.lastIndexOf('.') + 1).toLowerCase();
+        String contentType = TYPES.getOrDefault(extension, "application/octet-stream");
+        String etag = "\"" + Long.toHexString(size) + "-" + Long.toHexString(lastModified) + "\"";
+
+        if (size > CACHE_MAX_FILE_BYTES) {
+            return new Asset(file, size, lastModified, etag, contentType, null, null, now);
+        }
+        byte[] bytes = Files.readAllBytes(file);
+        byte[] gzip = compressible(contentType) ? gzip(bytes) : null;
+        if (gzip != null && gzip.length >= bytes.length) gzip = null; // not worth a second representation
+        return new Asset(file, bytes.length, lastModified, etag, contentType, bytes, gzip, now);
+    }
+
+    private static boolean compressible(String contentType) {
+        return contentType.startsWith("text/") || contentType.equals("application/json")
+                || contentType.equals("image/svg+xml");
+    }
+
+    private static byte[] gzip(byte[] bytes) throws IOException {
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream(bytes.length / 2 + 64);
+        try (GZIPOutputStream out = new GZIPOutputStream(buffer) {
+            { def.setLevel(Deflater.BEST_COMPRESSION); } // done once per file change, so take the best ratio
+        }) {
+            out.write(bytes);
+        }
+        return buffer.toByteArray();
+    }
+}
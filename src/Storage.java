@@ -0,0 +1,98 @@
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.sql.SQLException;
+
+/**
+ * Picks the storage backend once, at startup.
+ *
+ *   -Dstorage.backend=jdbc  MySQL through DatabaseConnection (default)
+ *   -Dstorage.backend=file  embedded FileStore, no database server needed;
+ *                           -Dstorage.file=path (default data/expense-tracker.journal)
+ *
+ * With -Danalytics.columnar=true the expense repository is wrapped in a
+ * ColumnarExpenseRepository, loaded here, which answers the aggregates.
+ */
+public class Storage {
+
+    private static final String BACKEND = System.getProperty("storage.backend", "jdbc");
+
+    private static final boolean COLUMNAR = Boolean.getBoolean("analytics.columnar");
+
+    private static final ExpenseRepository EXPENSES;
+    private static final UserRepository USERS;
+    private static final CategoryRepository CATEGORIES;
+    private static final FileStore FILE_STORE; // null unless backend=file
+    private static final ColumnarExpenseRepository ANALYTICS; // null unless analytics.columnar
+
+    static {
+        ExpenseRepository expenses;
+        switch (BACKEND) {
+            case "jdbc" -> {
+                FILE_STORE = null;
+                expenses = new JdbcExpenseRepository();
+                USERS = new JdbcUserRepository();
+                CATEGORIES = new JdbcCategoryRepository();
+            }
+            case "file" -> {
+                try {
+                    FILE_STORE = FileStore.open(Path.of(System.getProperty("storage.file", "data/expense-tracker.journal")),
+                            Boolean.getBoolean("storage.file.fsync"));
+                } catch (IOException e) {
+                    throw new UncheckedIOException("Could not open file store", e);
+                }
+                expenses = FILE_STORE;
+                USERS = FILE_STORE;
+                CATEGORIES = FILE_STORE;
+            }
+            default -> throw new IllegalArgumentException(
+                    "Unknown storage.backend '" + BACKEND + "' (expected jdbc or file)");
+        }
+
+        ColumnarExpenseRepository analytics = null;
+        if (COLUMNAR) {
+            try {
+                analytics = ColumnarExpenseRepository.load(expenses);
+                expenses = analytics;
+            } catch (SQLException e) {
+                System.out.println("⚠️ Columnar analytics disabled, could not load expenses: " + e.getMessage());
+            }
+        }
+        ANALYTICS = analytics;
+        EXPENSES = expenses;
+    }
+
+    public static ExpenseRepository expenses() {
+        return EXPENSES;
+    }
+
+    public static UserRepository users() {
+        return USERS;
+    }
+
+    public static CategoryRepository categories() {
+        return CATEGORIES;
+    }
+
+    // null unless -Danalytics.columnar=true loaded successfully
+    public static ColumnarExpenseRepository analytics() {
+        return ANALYTICS;
+    }
+
+    public static String backend() {
+        return BACKEND;
+    }
+
+    // Release the pool or flush and close the journal
+    public static void shutdown() {
+        if (FILE_STORE == null) {
+            DatabaseConnection.shutdown();
+            return;
+        }
+        try {
+            FILE_STORE.close();
+        } catch (IOException e) {
+            System.out.println("⚠️ Could not close file store: " + e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,127 @@
+import java.sql.SQLException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Bounded, TTL-limited cache for per-user summaries (category totals, monthly totals, recent lists).
+ *
+ * Concurrent misses for the same key share one load. Writes call invalidateUser(),
+ * which drops the user's entries and bumps a per-user version so a load that
+ * started before the write cannot put a stale value back.
+ */
+public class SummaryCache {
+
+    // kind distinguishes the summary, a/b hold its arguments (year, month, limit...)
+    public record Key(int userId, String kind, int a, int b) {}
+
+    @FunctionalInterface
+    public interface Loader<T> {
+        T load() throws SQLException;
+    }
+
+    private record Entry(Object value, long expiresAt) {}
+
+    private final int maxEntries;
+    private final long ttlNanos;
+    private final Map<Key, Entry> entries;
+    private final Map<Key, CompletableFuture<Object>> inFlight = new ConcurrentHashMap<>();
+    private final Map<Integer, AtomicLong> versions = new ConcurrentHashMap<>();
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+    private final AtomicLong expirations = new AtomicLong();
+    private final AtomicLong invalidations = new AtomicLong();
+
+    public SummaryCache(int maxEntries, long ttlMillis) {
+        this.maxEntries = maxEntries;
+        this.ttlNanos = ttlMillis * 1_000_000L;
+        // access-ordered, so the eldest entry is the least recently used
+        this.entries = new LinkedHashMap<>(64, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, Entry> eldest) {
+                if (size() > SummaryCache.this.maxEntries) {
+                    evictions.incrementAndGet();
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    @SuppressWarnings("unchecked")
+    public <T> T get(Key key, Loader<T> loader) throws SQLException {
+        if (maxEntries <= 0) return loader.load();
+
+        synchronized (entries) {
+            Entry entry = entries.get(key);
+            if (entry != null) {
+                if (System.nanoTime() - entry.expiresAt() < 0) {
+                    hits.incrementAndGet();
+                    return (T) entry.value();
+                }
+                entries.remove(key);
+                expirations.incrementAndGet();
+            }
+        }
+        misses.incrementAndGet();
+
+        // single flight: only the first caller for a key runs the query, the rest wait for it
+        CompletableFuture<Object> mine = new CompletableFuture<>();
+        CompletableFuture<Object> running = inFlight.putIfAbsent(key, mine);
+        if (running != null) {
+            try {
+                return (T) running.join();
+            } catch (CompletionException e) {
+                if (e.getCause() instanceof SQLException sql) throw sql;
+                throw e;
+            }
+        }
+
+        long version = version(key.userId()).get();
+        try {
+            T value = loader.load();
+            if (version(key.userId()).get() == version) {
+                synchronized (entries) {
+                    entries.put(key, new Entry(value, System.nanoTime() + ttlNanos));
+                }
+            }
+            mine.complete(value);
+            return value;
+        } catch (SQLException | RuntimeException e) {
+            mine.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, mine);
+        }
+    }
+
+    // Drop everything cached for a user after their expenses change
+    public void invalidateUser(int userId) {
+        if (maxEntries <= 0) return;
+        version(userId).incrementAndGet();
+        invalidations.incrementAndGet();
+        synchronized (entries) {
+            entries.keySet().removeIf(k -> k.userId() == userId);
+        }
+        inFlight.keySet().removeIf(k -> k.userId() == userId);
+    }
+
+    private AtomicLong version(int userId) {
+        return versions.computeIfAbsent(userId, id -> new AtomicLong());
+    }
+
+    public Stats stats() {
+        int size;
+        synchronized (entries) {
+            size = entries.size();
+        }
+        return new Stats(size, hits.get(), misses.get(), evictions.get(), expirations.get(), invalidations.get());
+    }
+
+    public record Stats(int size, long hits, long misses, long evictions, long expirations, long invalidations) {}
+}
@@ -1,9 +1,12 @@
+import java.sql.Connection;
+import java.sql.SQLException;
+
 public class TestConnection {
     public static void main(String[] args) {
-        if (DatabaseConnection.connect() != null) {
+        try (Connection conn = DatabaseConnection.connect()) {
             System.out.println("✅ Test connection successful!");
-        } else {
-            System.out.println("❌ Test connection failed!");
+        } catch (SQLException e) {
+            System.out.println("❌ Test connection failed: " + e.getMessage());
         }
     }
 }
@@ -1,72 +1,118 @@
-import java.sql.*;
+import java.sql.SQLException;
 
 public class UserManager {
 
-    // Register a new user
-    public static boolean registerUser(User user) {
-        String sql = "INSERT INTO users (username, email, password, full_name) VALUES (?, ?, ?, ?)";
-        try (Connection conn = DatabaseConnection.connect();
-             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+    // PBKDF2 cost; raising it makes existing users' hashes upgrade on their next login
+    private static final PasswordHasher HASHER = new PasswordHasher(
+            Integer.getInteger("password.iterations", 210_000),
+            Integer.getInteger("password.threads", Math.max(2, Runtime.getRuntime().availableProcessors() / 2)),
+            Integer.getInteger("password.queue", 64));
+
+    // Verified against when the username doesn't exist, so both cases take the same time
+    private static final String DUMMY_HASH = HASHER.hash("not-a-real-password");
 
-            pstmt.setString(1, user.getUsername());
-            pstmt.setString(2, user.getEmail());
-            pstmt.setString(3, user.getPassword());
-            pstmt.setString(4, user.getFullName());
+    // Timings exported by /metrics; hashing is listed separately because it dominates login time
+    private static final Metrics.Histogram Q_INSERT = Metrics.query("user_insert");
+    private static final Metrics.Histogram Q_FIND = Metrics.query("user_find");
+    private static final Metrics.Histogram Q_UPDATE_PASSWORD = Metrics.query("user_update_password");
+    private static final Metrics.Histogram HASH_TIME = Metrics.histogram("password_hash_seconds",
+            "Time to hash or verify a password, including queueing", "op", "hash");
+    private static final Metrics.Histogram VERIFY_TIME = Metrics.histogram("password_hash_seconds",
+            "Time to hash or verify a password, including queueing", "op", "verify");
 
-            int rowsInserted = pstmt.executeUpdate();
-            return rowsInserted > 0;
+    // Register a new user (password is stored as a salted PBKDF2 hash)
+    // Throws PasswordHasher.OverloadedException when the hashing queue is full
+    public static boolean registerUser(User user) {
+        if (user.getPassword() == null || user.getPassword().isEmpty()) return false;
+        long start = System.nanoTime();
+        String passwordHash = HASHER.hash(user.getPassword());
+        HASH_TIME.recordSince(start);
 
+        start = System.nanoTime();
+        try {
+            return Storage.users().insert(user, passwordHash);
         } catch (SQLException e) {
             System.out.println("⚠️ Registration failed: " + e.getMessage());
             return false;
+        } finally {
+            Q_INSERT.recordSince(start);
         }
     }
 
-    // Authenticate login
+    // Authenticate login: fetch by username, verify the hash on the hashing pool
+    // Throws PasswordHasher.OverloadedException when the hashing queue is full
     public static User loginUser(String username, String password) {
-        String sql = "SELECT * FROM users WHERE username = ? AND password = ?";
-        try (Connection conn = DatabaseConnection.connect();
-             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+        if (username == null || password == null) return null;
 
-            pstmt.setString(1, username);
-            pstmt.setString(2, password);
+        UserRepository.Account account;
+        long start = System.nanoTime();
+        try {
+            account = Storage.users().findByUsername(username);
+        } catch (SQLException e) {
+            System.out.println("⚠️ Login failed: " + e.getMessage());
+            return null;
+        } finally {
+            Q_FIND.recordSince(start);
+        }
 
-            ResultSet rs = pstmt.executeQuery();
-            if (rs.next()) {
-                User user = new User();
-                user.setUserId(rs.getInt("user_id"));
-                user.setUsername(rs.getString("username"));
-                user.setEmail(rs.getString("email"));
-                user.setFullName(rs.getString("full_name"));
-                return user;
-            }
+        // no connection is held while we hash
+        start = System.nanoTime();
+        PasswordHasher.Verification check = HASHER.verify(password, account != null ? account.passwordHash() : DUMMY_HASH);
+        VERIFY_TIME.recordSince(start);
+        if (account == null || !check.matches()) {
+            return null; // Invalid login
+        }
+        if (check.needsRehash()) {
+            rehashPassword(account.user().getUserId(), account.passwordHash(), password);
+        }
+        return account.user();
+    }
+
+    // Upgrade a legacy or outdated hash; only replaces the exact value we verified against
+    private static void rehashPassword(int userId, String oldHash, String password) {
+        long start = System.nanoTime();
+        try {
+            Storage.users().updatePasswordHash(userId, oldHash, HASHER.hash(password));
+        } catch (SQLException | PasswordHasher.OverloadedException e) {
+            // not fatal: we'll try again on the next login
+            System.out.println("⚠️ Could not upgrade password hash: " + e.getMessage());
+        } finally {
+            Q_UPDATE_PASSWORD.recordSince(start);
+        }
+    }
 
+    // Look a user up without a password, for operator tools such as CsvImporter; null if unknown
+    public static User findUser(String username) {
+        long start = System.nanoTime();
+        try {
+            UserRepository.Account account = Storage.users().findByUsername(username);
+            return account != null ? account.user() : null;
         } catch (SQLException e) {
-            System.out.println("⚠️ Login failed: " + e.getMessage());
+            System.out.println("⚠️ Error fetching user: " + e.getMessage());
+            return null;
+        } finally {
+            Q_FIND.recordSince(start);
         }
-        return null; // Invalid login
     }
 
     // Fetch user details by ID
     public static void getUserDetails(int userId) {
-        String sql = "SELECT * FROM users WHERE user_id = ?";
-        try (Connection conn = DatabaseConnection.connect();
-             PreparedStatement pstmt = conn.prepareStatement(sql)) {
-
-            pstmt.setInt(1, userId);
-            ResultSet rs = pstmt.executeQuery();
-
-            if (rs.next()) {
+        long start = System.nanoTime();
+        try {
+            User user = Storage.users().findById(userId);
+            if (user != null) {
                 System.out.println("👤 User Details:");
-                System.out.println("Full Name: " + rs.getString("full_name"));
-                System.out.println("Username: " + rs.getString("username"));
-                System.out.println("Email: " + rs.getString("email"));
+                System.out.println("Full Name: " + user.getFullName());
+                System.out.println("Username: " + user.getUsername());
+                System.out.println("Email: " + user.getEmail());
             } else {
                 System.out.println("❌ User not found.");
             }
 
         } catch (SQLException e) {
             System.out.println("⚠️ Error fetching user: " + e.getMessage());
+        } finally {
+            Q_FIND.recordSince(start);
         }
     }
 }
@@ -0,0 +1,23 @@
+import java.sql.SQLException;
+
+/**
+ * Storage for user accounts, behind UserManager.
+ *
+ * Password hashing stays in UserManager; repositories only store the hash.
+ */
+public interface UserRepository {
+
+    // A user plus the stored password hash (never copied into User)
+    record Account(User user, String passwordHash) {}
+
+    // Throws SQLIntegrityConstraintViolationException when the username or email is already taken
+    boolean insert(User user, String passwordHash) throws SQLException;
+
+    // null when there is no such user
+    Account findByUsername(String username) throws SQLException;
+
+    User findById(int userId) throws SQLException;
+
+    // Compare-and-set: only replaces the hash if it is still expectedHash
+    boolean updatePasswordHash(int userId, String expectedHash, String newHash) throws SQLException;
+}
@@ -0,0 +1,113 @@
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Runs with -Dimport.windowBytes=256, so the longer files below span several mapped windows
+class CsvImporterTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void parsesASignedBankStatement() throws Exception {
+        StringBuilder csv = new StringBuilder("﻿Date,Amount,Category,Memo\r\n")
+                .append("2025-01-02,-12.50,Food,\"Lunch, with \"\"Sam\"\"\"\r\n")
+                .append("03/01/2025,\"-1,234.5\",Travel,Train\n")
+                .append("2025-01-04,2500.00,Food,Salary\n")
+                .append("2025-01-05,abc,Food,bad amount\n")
+                .append("2025-13-01,-1,Food,bad date\n")
+                .append("2025-01-06,-₹99,,\n")
+                .append("\n");
+        for (int day = 1; day <= 28; day++) {
+            csv.append(String.format("2025-02-%02d,-1.05,food,row %d%n", day, day));
+        }
+        int userId = TestStore.newUser("csv");
+
+        CsvImporter.Summary summary = importCsv(csv.toString(), userId, null);
+
+        assertTrue(summary.completed());
+        assertEquals(34, summary.rows());
+        assertEquals(31, summary.imported());
+        assertEquals(2, summary.failed());
+        assertEquals(1, summary.credits());
+
+        List<Expense> rows = expenses(userId);
+        assertEquals(31, rows.size());
+        Expense lunch = find(rows, "Lunch, with \"Sam\"");
+        assertEquals(12.50, lunch.getAmount(), 0.001);
+        assertEquals(LocalDate.of(2025, 1, 2), lunch.getExpenseDate());
+        assertEquals(CategoryManager.getCategoryId("Food"), lunch.getCategoryId());
+
+        Expense train = find(rows, "Train");
+        assertEquals(1234.50, train.getAmount(), 0.001);
+        assertEquals(LocalDate.of(2025, 1, 3), train.getExpenseDate());
+        assertEquals(CategoryManager.getCategoryId("Travel"), train.getCategoryId());
+
+        Expense noCategory = rows.stream().filter(e -> e.getDescription() == null).findFirst().orElseThrow();
+        assertEquals(99.00, noCategory.getAmount(), 0.001);
+        assertEquals(CategoryManager.getCategoryId("Other"), noCategory.getCategoryId());
+
+        assertEquals(28 * 1.05, rows.stream().filter(e -> e.getExpenseDate().getMonthValue() == 2)
+                .mapToDouble(Expense::getAmount).sum(), 0.001);
+        assertTrue(rows.stream().noneMatch(e -> "Salary".equals(e.getDescription())));
+    }
+
+    @Test
+    void positiveAmountsAreSpendingWithoutNegativeRows() throws Exception {
+        int userId = TestStore.newUser("csv");
+        CsvImporter.Summary summary = importCsv("date,amount,category,description\n"
+                + "2025-03-01,4.20,Food,coffee\n"
+                + "2025-03-02,15,Food,lunch\n", userId, null);
+
+        assertEquals(2, summary.imported());
+        assertEquals(0, summary.credits());
+        assertEquals(19.20, expenses(userId).stream().mapToDouble(Expense::getAmount).sum(), 0.001);
+    }
+
+    @Test
+    void debitSignOptionOverridesDetection() throws Exception {
+        int userId = TestStore.newUser("csv");
+        CsvImporter.Summary summary = importCsv("date,amount,category\n"
+                + "2025-03-01,4.20,Food\n"
+                + "2025-03-02,-15,Food\n", userId, CsvImporter.DebitSign.NEGATIVE);
+
+        assertEquals(1, summary.imported());
+        assertEquals(1, summary.credits());
+        assertEquals(15.00, expenses(userId).get(0).getAmount(), 0.001);
+    }
+
+    @Test
+    void unknownDefaultCategoryIsRejectedWithoutCreate() throws Exception {
+        int userId = TestStore.newUser("csv");
+        Path csv = Files.createTempFile(dir, "statement", ".csv");
+        Files.writeString(csv, "date,amount\n2025-03-01,-4.20\n", StandardCharsets.UTF_8);
+
+        assertThrows(IllegalArgumentException.class, () -> CsvImporter.importFile(csv, userId,
+                new CsvImporter.Options(7, "No Such Category", false, true, null)));
+        assertTrue(expenses(userId).isEmpty());
+    }
+
+    private CsvImporter.Summary importCsv(String content, int userId, CsvImporter.DebitSign debitSign) throws Exception {
+        Path csv = Files.createTempFile(dir, "statement", ".csv");
+        Files.writeString(csv, content, StandardCharsets.UTF_8);
+        return CsvImporter.importFile(csv, userId, new CsvImporter.Options(7, "Other", true, true, debitSign));
+    }
+
+    private static List<Expense> expenses(int userId) throws Exception {
+        List<Expense> rows = new ArrayList<>();
+        Storage.expenses().forEachUserExpense(userId, false, rows::add);
+        return rows;
+    }
+
+    private static Expense find(List<Expense> rows, String description) {
+        return rows.stream().filter(e -> description.equals(e.getDescription())).findFirst().orElseThrow();
+    }
+}
@@ -0,0 +1,34 @@
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ExpenseCursorTest {
+
+    @Test
+    void roundTripsThroughItsToken() {
+        ExpenseCursor cursor = new ExpenseCursor(LocalDate.of(2025, 3, 14), 123456);
+        assertEquals(cursor, ExpenseCursor.decode(cursor.encode()));
+    }
+
+    @Test
+    void tokenIsUrlSafe() {
+        String token = new ExpenseCursor(LocalDate.of(9999, 12, 31), Integer.MAX_VALUE).encode();
+        assertTrue(token.matches("[A-Za-z0-9_-]+"), token);
+    }
+
+    @Test
+    void afterTakesTheLastRowOfAPage() {
+        Expense last = new Expense(1, 2, 9.99, "tea", LocalDate.of(2024, 2, 29));
+        last.setExpenseId(77);
+        assertEquals(new ExpenseCursor(LocalDate.of(2024, 2, 29), 77), ExpenseCursor.after(last));
+    }
+
+    @Test
+    void rejectsTokensItDidNotMake() {
+        for (String token : new String[]{"", "!!!", "bm90LWEtY3Vyc29y", "MjAyNS0xMy0wMToxMg"}) {
+            assertThrows(IllegalArgumentException.class, () -> ExpenseCursor.decode(token), token);
+        }
+    }
+}
@@ -0,0 +1,57 @@
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ResponseBodyTest {
+
+    @Test
+    void acceptsGzipWhenListed() {
+        assertTrue(ResponseBody.acceptsGzip("gzip"));
+        assertTrue(ResponseBody.acceptsGzip("deflate, gzip;q=0.5, br"));
+        assertTrue(ResponseBody.acceptsGzip("x-gzip"));
+        assertTrue(ResponseBody.acceptsGzip("GZIP"));
+    }
+
+    @Test
+    void refusesGzipWhenMissingOrZeroQuality() {
+        assertFalse(ResponseBody.acceptsGzip(null));
+        assertFalse(ResponseBody.acceptsGzip(""));
+        assertFalse(ResponseBody.acceptsGzip("identity"));
+        assertFalse(ResponseBody.acceptsGzip("gzip;q=0"));
+        assertFalse(ResponseBody.acceptsGzip("gzip;q=bogus"));
+    }
+
+    @Test
+    void wildcardCountsOnlyWhenGzipIsNotNamed() {
+        assertTrue(ResponseBody.acceptsGzip("*"));
+        assertFalse(ResponseBody.acceptsGzip("*;q=0"));
+        assertFalse(ResponseBody.acceptsGzip("gzip;q=0, *"));
+    }
+
+    @Test
+    void matchesEitherEncodingOfTheEtag() {
+        String etag = "\"u1-5-abc\"";
+        assertTrue(ResponseBody.matches(etag, etag));
+        assertTrue(ResponseBody.matches("\"u1-5-abc-gz\"", etag));
+        assertTrue(ResponseBody.matches("W/\"u1-5-abc\"", etag));
+        assertTrue(ResponseBody.matches("\"other\", \"u1-5-abc\"", etag));
+        assertTrue(ResponseBody.matches("*", etag));
+    }
+
+    @Test
+    void echoesTheVariantTheClientHolds() {
+        String etag = "\"u1-5-abc\"";
+        assertEquals("\"u1-5-abc-gz\"", ResponseBody.matchingEtag("W/\"u1-5-abc-gz\"", etag));
+        assertEquals(etag, ResponseBody.matchingEtag("\"other\", \"u1-5-abc\"", etag));
+        assertEquals(etag, ResponseBody.matchingEtag("*", etag));
+        assertNull(ResponseBody.matchingEtag("\"u1-4-abc-gz\"", etag));
+    }
+
+    @Test
+    void doesNotMatchOtherVersions() {
+        String etag = "\"u1-5-abc\"";
+        assertFalse(ResponseBody.matches(null, etag));
+        assertFalse(ResponseBody.matches("\"u1-4-abc\"", etag));
+        assertFalse(ResponseBody.matches("u1-5-abc", etag));
+    }
+}
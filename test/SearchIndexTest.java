@@ -0,0 +1,69 @@
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SearchIndexTest {
+
+    @Test
+    void tokenizeLowercasesAndDeduplicates() {
+        assertEquals(List.of("coffee", "at", "café", "2"), SearchIndex.tokenize("Coffee at CAFÉ #2, coffee!"));
+        assertEquals(List.of(), SearchIndex.tokenize("  --  "));
+        assertEquals(List.of(), SearchIndex.tokenize(null));
+    }
+
+    @Test
+    void findsPrefixesAndRequiresEveryWord() throws Exception {
+        int userId = TestStore.newUser("search");
+        add(userId, "Coffee beans", "Coffee with Sam", "Train to work");
+
+        assertEquals(2, SearchIndex.search(userId, "cof", 10).matches());
+        assertEquals(1, SearchIndex.search(userId, "coffee sam", 10).matches());
+        assertEquals("Train to work", SearchIndex.search(userId, "TRAIN", 10).hits().get(0).expense().getDescription());
+        assertEquals(0, SearchIndex.search(userId, "coffee train", 10).matches());
+    }
+
+    @Test
+    void compactionKeepsLiveDocumentsAndDropsDeletedTerms() throws Exception {
+        int userId = TestStore.newUser("search");
+        SearchIndex.search(userId, "anything", 1); // build the (empty) index so adds go straight in
+        List<Expense> rows = add(userId, 3000);
+        int termsBefore = SearchIndex.stats().terms();
+
+        // Deleting 2500 of 3000 leaves more garbage than live rows, which triggers compaction
+        for (Expense e : rows.subList(0, 2500)) {
+            assertTrue(ExpenseManager.deleteExpense(e.getExpenseId(), userId));
+        }
+
+        assertTrue(termsBefore - SearchIndex.stats().terms() > 1000, "deleted unique words were dropped");
+        assertEquals(500, SearchIndex.search(userId, "shared", 1000).matches());
+        assertEquals(0, SearchIndex.search(userId, "w42", 10).matches());
+        SearchIndex.Result kept = SearchIndex.search(userId, "w2999", 10);
+        assertEquals(1, kept.matches());
+        assertEquals(rows.get(2999).getExpenseId(), kept.hits().get(0).expense().getExpenseId());
+
+        // Adds after compaction land in fresh slots and are found alongside the survivors
+        add(userId, "shared latecomer");
+        assertEquals(501, SearchIndex.search(userId, "shared", 1000).matches());
+        assertEquals(1, SearchIndex.search(userId, "late", 10).matches());
+    }
+
+    private static List<Expense> add(int userId, String... descriptions) {
+        List<Expense> rows = new ArrayList<>();
+        for (String description : descriptions) {
+            rows.add(new Expense(userId, 1, 5.0, description, LocalDate.of(2025, 1, 1)));
+        }
+        assertEquals(rows.size(), ExpenseManager.addExpenses(rows).getSucceeded());
+        return rows;
+    }
+
+    // "shared w<i>": one word every row has and one unique to it
+    private static List<Expense> add(int userId, int count) {
+        String[] descriptions = new String[count];
+        for (int i = 0; i < count; i++) descriptions[i] = "shared w" + i;
+        return add(userId, descriptions);
+    }
+}
@@ -0,0 +1,15 @@
+import java.sql.SQLException;
+
+// Users in the embedded file store the tests run against (see the surefire settings in app/pom.xml)
+final class TestStore {
+
+    private TestStore() {}
+
+    // A fresh user; names are unique per run because the store's journal outlives it
+    static int newUser(String prefix) throws SQLException {
+        String username = prefix + "-" + System.nanoTime();
+        User user = new User(username, username + "@example.com", null, prefix);
+        if (!Storage.users().insert(user, "not-a-real-hash")) throw new IllegalStateException("User not created");
+        return Storage.users().findByUsername(username).user().getUserId();
+    }
+}